@@ -0,0 +1,57 @@
+package com.equals.desafio;
+
+import com.equals.desafio.parser.SaleLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Linhas de detalhe para os benchmarks, a partir do arquivo de exemplo dos testes.
+ */
+public final class BenchmarkFixtures {
+
+    private static final String SAMPLE = "processoSeletivoEquals.txt";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Primeira linha de detalhe (tipo 1) do arquivo de exemplo, sem quebra de linha.
+     */
+    public static String detailLine() {
+        try (InputStream is = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(SAMPLE)) {
+            if (is == null) {
+                throw new IllegalStateException("Arquivo não encontrado no classpath: " + SAMPLE);
+            }
+            for (String line : new String(is.readAllBytes(), StandardCharsets.UTF_8).split("\r?\n")) {
+                if (!line.isEmpty() && line.charAt(0) == '1') {
+                    return line;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalStateException("Nenhuma linha tipo '1' em " + SAMPLE);
+    }
+
+    /**
+     * Arquivo com {@code count} linhas de detalhe iguais à de exemplo, cada uma com um
+     * transaction code diferente (senão a importação as descartaria como duplicadas).
+     */
+    public static byte[] detailFile(int count) {
+        String line = detailLine();
+        int codeStart = SaleLayout.TRANSACTION_CODE.offset();
+        int codeEnd = SaleLayout.TRANSACTION_CODE.end();
+
+        StringBuilder file = new StringBuilder((line.length() + 1) * count);
+        for (int i = 0; i < count; i++) {
+            file.append(line, 0, codeStart)
+                    .append(String.format("%032d", i))
+                    .append(line, codeEnd, line.length())
+                    .append('\n');
+        }
+        return file.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
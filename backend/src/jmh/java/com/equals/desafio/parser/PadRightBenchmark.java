@@ -0,0 +1,61 @@
+package com.equals.desafio.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completar uma linha curta com espaços até o tamanho mínimo do detalhe: a implementação
+ * do parser (StringBuilder com laço) contra alternativas com String.repeat e char[].
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PadRightBenchmark {
+
+    @Param({"0", "100", "500"})
+    public int length;
+
+    private String line;
+
+    @Setup
+    public void setUp() {
+        line = "1".repeat(length);
+    }
+
+    @Benchmark
+    public String stringBuilderLoop() {
+        return SaleParser.padRight(line, SaleLayout.DETAIL_MIN_LENGTH);
+    }
+
+    @Benchmark
+    public String stringRepeat() {
+        int missing = SaleLayout.DETAIL_MIN_LENGTH - line.length();
+        return missing <= 0 ? line : line + " ".repeat(missing);
+    }
+
+    @Benchmark
+    public String charArrayFill() {
+        if (line.length() >= SaleLayout.DETAIL_MIN_LENGTH) {
+            return line;
+        }
+        char[] chars = new char[SaleLayout.DETAIL_MIN_LENGTH];
+        line.getChars(0, line.length(), chars, 0);
+        Arrays.fill(chars, line.length(), chars.length, ' ');
+        return new String(chars);
+    }
+}
@@ -0,0 +1,80 @@
+package com.equals.desafio.parser;
+
+import com.equals.desafio.BenchmarkFixtures;
+import com.equals.desafio.domain.Sale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse de uma linha de detalhe pelas duas entradas do parser: String (usada pelo
+ * parse de linhas avulsas) e ByteBuffer (usada pela importação). As variantes "short"
+ * usam uma linha truncada antes do fim do layout, que precisa de preenchimento.
+ * parseReusedRecord lê pela mesma {@link SaleRecord} de linha em linha, como a importação,
+ * e cardBin decodifica um único campo fora dos gravados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaleParserBenchmark {
+
+    private final SaleParser parser = new SaleParser();
+
+    private String line;
+    private String shortLine;
+    private ByteBuffer record;
+    private ByteBuffer shortRecord;
+    private final SaleRecord view = new SaleRecord();
+
+    @Setup
+    public void setUp() {
+        line = BenchmarkFixtures.detailLine();
+        shortLine = line.substring(0, SaleLayout.BRAND.end());
+        record = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        shortRecord = ByteBuffer.wrap(shortLine.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public Sale parseString() {
+        return parser.parse(line);
+    }
+
+    @Benchmark
+    public Sale parseStringShort() {
+        return parser.parse(shortLine);
+    }
+
+    @Benchmark
+    public Sale parseByteBuffer() {
+        return parser.parse(record);
+    }
+
+    @Benchmark
+    public Sale parseByteBufferShort() {
+        return parser.parse(shortRecord);
+    }
+
+    @Benchmark
+    public Sale parseReusedRecord() {
+        return parser.parse(view.wrap(record));
+    }
+
+    @Benchmark
+    public String cardBin() {
+        return view.wrap(record).cardBin();
+    }
+}
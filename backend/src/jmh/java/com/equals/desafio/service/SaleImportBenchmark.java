@@ -0,0 +1,163 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.BenchmarkFixtures;
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.config.QueryCacheProperties;
+import com.equals.desafio.config.TotalsIndexProperties;
+import com.equals.desafio.domain.Sale;
+import com.equals.desafio.parser.SaleParser;
+import com.equals.desafio.repository.ImportCheckpointRepository;
+import com.equals.desafio.repository.ImportedFileRepository;
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleRollupWriter;
+import com.equals.desafio.service.SaleImportService.ImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação de uma venda e importação de ponta a ponta pelo caminho dos uploads: arquivo
+ * temporário mapeado em memória (hash, pipeline de blocos, parse, validação, lotes e
+ * checkpoints), com repositórios em memória e transações que não fazem nada, sem banco. O
+ * importLocalFile é medido em linhas por segundo. Usa o modo JPA, então o SaleCopyWriter
+ * não participa.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaleImportBenchmark {
+
+    private static final int LINES = 20_000;
+
+    private Sale sale;
+    private Path file;
+    private SaleImportService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        sale = new SaleParser().parse(BenchmarkFixtures.detailLine());
+        file = Files.write(Files.createTempFile("vendas", ".txt"), BenchmarkFixtures.detailFile(LINES));
+        service = new SaleImportService(new SaleParser(), inMemorySales(), null,
+                inMemoryImportedFiles(), new NoOpRollupWriter(), new SaleQueryCache(new QueryCacheProperties()),
+                new SaleTotalsIndex(disabledTotalsIndex(), null), new ImportMetrics(new SimpleMeterRegistry()),
+                inMemoryCheckpoints(), new NoOpTransactionManager(), new ImportProperties());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Sale validateSale() {
+        SaleImportService.validateSale(sale);
+        return sale;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public ImportResult importLocalFile() {
+        ImportResult result = service.importLocalFile(file, ImportWriteMode.JPA, ImportListener.NONE);
+        if (result.saved() != LINES) {
+            throw new IllegalStateException("Esperava " + LINES + " vendas salvas, foram " + result.saved());
+        }
+        return result;
+    }
+
+    /**
+     * Toda venda é nova: nenhum código reservado antes, saveAll só devolve o lote.
+     */
+    private static SaleRepository inMemorySales() {
+        return (SaleRepository) Proxy.newProxyInstance(SaleRepository.class.getClassLoader(),
+                new Class<?>[] {SaleRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "saveAll" -> args[0];
+                    case "reserveTransactionCodes" -> Set.of();
+                    case "flushAndClear" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Nenhum arquivo foi importado antes, então cada invocação processa as linhas de novo.
+     */
+    private static ImportedFileRepository inMemoryImportedFiles() {
+        return (ImportedFileRepository) Proxy.newProxyInstance(ImportedFileRepository.class.getClassLoader(),
+                new Class<?>[] {ImportedFileRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.empty();
+                    case "insertIfAbsent" -> 1;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Sem checkpoint anterior; o save devolve o que recebe, como o JPA.
+     */
+    private static ImportCheckpointRepository inMemoryCheckpoints() {
+        return (ImportCheckpointRepository) Proxy.newProxyInstance(ImportCheckpointRepository.class.getClassLoader(),
+                new Class<?>[] {ImportCheckpointRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.empty();
+                    case "save" -> args[0];
+                    case "delete" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static TotalsIndexProperties disabledTotalsIndex() {
+        TotalsIndexProperties properties = new TotalsIndexProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    private static class NoOpRollupWriter extends SaleRollupWriter {
+
+        NoOpRollupWriter() {
+            super(null);
+        }
+
+        @Override
+        public void addSales(List<Sale> sales) {
+        }
+    }
+}
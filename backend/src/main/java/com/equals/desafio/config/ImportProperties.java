@@ -0,0 +1,111 @@
+package com.equals.desafio.config;
+
+import com.equals.desafio.service.ImportWriteMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.import")
+public class ImportProperties {
+
+    private int batchSize = 1000;
+    private ImportWriteMode writeMode = ImportWriteMode.JPA;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 16;
+    private int blockSize = 256 * 1024;
+    private String spoolDir;
+    private Duration jobRetention = Duration.ofHours(1);
+    private int maxConcurrent = 2;
+    private int maxQueued = 20;
+    private DataSize memoryBudget;
+    private String errorsDir;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public ImportWriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(ImportWriteMode writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public Duration getJobRetention() {
+        return jobRetention;
+    }
+
+    public void setJobRetention(Duration jobRetention) {
+        this.jobRetention = jobRetention;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public DataSize getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(DataSize memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public String getErrorsDir() {
+        return errorsDir;
+    }
+
+    public void setErrorsDir(String errorsDir) {
+        this.errorsDir = errorsDir;
+    }
+}
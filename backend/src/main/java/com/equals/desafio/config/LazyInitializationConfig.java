@@ -0,0 +1,22 @@
+package com.equals.desafio.config;
+
+import com.equals.desafio.service.ImportScheduler;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans que continuam sendo criados na subida com {@code spring.main.lazy-initialization}
+ * (profile prod). O Spring Boot já mantém os {@code SmartInitializingSingleton}, como o
+ * índice de totais; aqui entram as migrations, que precisam rodar antes da primeira
+ * requisição, e a fila de importações, que registra os gauges de admissão.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, ImportScheduler.class);
+    }
+}
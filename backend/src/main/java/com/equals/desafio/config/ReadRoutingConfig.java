@@ -0,0 +1,72 @@
+package com.equals.desafio.config;
+
+import com.equals.desafio.repository.ReadRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leituras em réplicas (app.read-routing.enabled=true). O DataSource da aplicação passa a
+ * ser um {@link LazyConnectionDataSourceProxy}: transações marcadas {@code readOnly} pegam
+ * conexão do {@link ReadRoutingDataSource}, as demais do primário (spring.datasource.*).
+ * Como a conexão só é escolhida no primeiro comando, a marcação precisa vir antes dele.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("app.read-routing.enabled")
+public class ReadRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    ReadRoutingDataSource readRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties primary,
+            ReadRoutingProperties properties, MeterRegistry registry) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalArgumentException("app.read-routing.replicas deve ter ao menos uma réplica.");
+        }
+        List<ReadRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReadRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            String name = "replica-" + i;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+            pool.setMaximumPoolSize(properties.getReplicaPoolSize());
+            pool.setConnectionTimeout(properties.getReplicaConnectionTimeout().toMillis());
+            // Réplica fora do ar não impede a subida: fica fora do rodízio até responder.
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pool.setMetricRegistry(registry);
+            replicas.add(new ReadRoutingDataSource.Replica(name, pool));
+        }
+        return new ReadRoutingDataSource(primaryDataSource, replicas, properties.isReadYourWrites(),
+                properties.getCheckInterval(), registry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReadRoutingDataSource readRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(readRoutingDataSource.writer());
+        dataSource.setReadOnlyDataSource(readRoutingDataSource);
+        // Padrões do primário, para o proxy não consultar o banco na subida.
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+}
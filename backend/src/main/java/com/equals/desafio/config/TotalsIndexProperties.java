@@ -0,0 +1,26 @@
+package com.equals.desafio.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.totals-index")
+public class TotalsIndexProperties {
+
+    private boolean enabled = true;
+    private boolean backgroundLoad = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isBackgroundLoad() {
+        return backgroundLoad;
+    }
+
+    public void setBackgroundLoad(boolean backgroundLoad) {
+        this.backgroundLoad = backgroundLoad;
+    }
+}
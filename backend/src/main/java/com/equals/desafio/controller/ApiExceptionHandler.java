@@ -1,5 +1,7 @@
 package com.equals.desafio.controller;
 
+import com.equals.desafio.service.ImportRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -14,4 +16,10 @@ public class ApiExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of(
                 "error", ex.getMessage()));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(ImportRejectedException.class)
+    public ResponseEntity<?> handleImportRejected(ImportRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", ex.getMessage()));
+    }
+}
@@ -1,23 +1,120 @@
 package com.equals.desafio.controller;
 
-import com.equals.desafio.service.SaleImportService;
+import com.equals.desafio.service.ImportJob;
+import com.equals.desafio.service.ImportJobService;
+import com.equals.desafio.service.ImportWriteMode;
+import com.equals.desafio.service.RejectedLineSpool;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/imports")
 public class ImportController {
 
-    private final SaleImportService importService;
+    private final ImportJobService importJobService;
 
-    public ImportController(SaleImportService importService) {
-        this.importService = importService;
+    public ImportController(ImportJobService importJobService) {
+        this.importJobService = importJobService;
     }
 
     @PostMapping(consumes = "multipart/form-data")
-    public ResponseEntity<?> importFile(@RequestParam("file") MultipartFile file) {
-        var result = importService.importFile(file);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<?> importFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "writer", required = false) String writer) {
+        var job = importJobService.submitUpload(file, ImportWriteMode.fromParam(writer));
+        return accepted(job);
+    }
+
+    /**
+     * Upload do arquivo cru (application/octet-stream), opcionalmente com
+     * Content-Encoding: gzip. O parse começa assim que os primeiros bytes chegam;
+     * a resposta traz o job já concluído.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> importStream(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestParam(value = "name", required = false) String fileName,
+            @RequestParam(value = "writer", required = false) String writer) {
+        boolean gzip = contentEncoding != null
+                && (contentEncoding.equalsIgnoreCase("gzip") || contentEncoding.equalsIgnoreCase("x-gzip"));
+        var job = importJobService.importStream(body, gzip, fileName,
+                contentLength != null ? contentLength : -1, ImportWriteMode.fromParam(writer));
+        return ResponseEntity.ok(job.snapshot());
+    }
+
+    @PostMapping("/spool")
+    public ResponseEntity<?> importSpoolFile(
+            @RequestParam("file") String fileName,
+            @RequestParam(value = "writer", required = false) String writer) {
+        var job = importJobService.submitSpool(fileName, ImportWriteMode.fromParam(writer));
+        return accepted(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        return importJobService.find(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> events(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> ResponseEntity.ok(importJobService.stream(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Todas as linhas rejeitadas do job, paginadas por cursor como GET /sales, com o total
+     * e a contagem por motivo. Pode ser consultado com a importação ainda em andamento.
+     */
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<RejectedLineSpool.RejectionPage> errors(
+            @PathVariable String id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return importJobService.find(id)
+                .map(job -> job.getRejections() != null
+                        ? job.getRejections().page(cursor, size)
+                        : new RejectedLineSpool.RejectionPage(List.of(), null, 0, Map.of()))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * As mesmas linhas rejeitadas, todas de uma vez, como NDJSON em streaming.
+     */
+    @GetMapping(value = "/{id}/errors/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportErrors(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> {
+                    StreamingResponseBody body = out -> {
+                        if (job.getRejections() != null) {
+                            job.getRejections().export(out);
+                        }
+                    };
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                            .body(body);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> accepted(ImportJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/imports/" + job.getId()))
+                .body(job.snapshot());
     }
 }
@@ -1,48 +1,156 @@
 package com.equals.desafio.controller;
 
 import com.equals.desafio.domain.Sale;
-import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleRollupWriter;
+import com.equals.desafio.repository.SaleSummaryReader;
+import com.equals.desafio.service.SaleImportService;
+import com.equals.desafio.service.SaleQueryCache;
+import com.equals.desafio.service.SaleQueryService;
+import com.equals.desafio.service.SaleTotalsIndex;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/sales")
 @CrossOrigin(origins = "http://localhost:5173")
 public class SaleController {
 
-    private final SaleRepository saleRepository;
+    private final SaleImportService saleImportService;
+    private final SaleQueryService saleQueryService;
+    private final SaleRollupWriter saleRollupWriter;
+    private final SaleSummaryReader saleSummaryReader;
+    private final SaleQueryCache saleQueryCache;
+    private final SaleTotalsIndex saleTotalsIndex;
 
-    public SaleController(SaleRepository saleRepository) {
-        this.saleRepository = saleRepository;
+    public SaleController(SaleImportService saleImportService, SaleQueryService saleQueryService,
+            SaleRollupWriter saleRollupWriter, SaleSummaryReader saleSummaryReader,
+            SaleQueryCache saleQueryCache, SaleTotalsIndex saleTotalsIndex) {
+        this.saleImportService = saleImportService;
+        this.saleQueryService = saleQueryService;
+        this.saleRollupWriter = saleRollupWriter;
+        this.saleSummaryReader = saleSummaryReader;
+        this.saleQueryCache = saleQueryCache;
+        this.saleTotalsIndex = saleTotalsIndex;
     }
 
     @PostMapping
     public Sale create(@RequestBody Sale sale) {
-        return saleRepository.save(sale);
+        return saleImportService.saveSale(sale);
     }
 
-@GetMapping
-public List<Sale> list(
-    @RequestParam(value = "start", required = false)
-    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-    LocalDate start,
+    /**
+     * Lista paginada por cursor. A primeira chamada vai sem {@code cursor}; as seguintes
+     * repassam o {@code nextCursor} da página anterior até ele vir nulo. Páginas vêm do
+     * cache de consultas e levam ETag; com {@code If-None-Match} igual, a resposta é 304.
+     */
+    @GetMapping
+    public ResponseEntity<SaleQueryService.SalePage> list(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
 
-    @RequestParam(value = "end", required = false)
-    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-    LocalDate end
-) {
-    if (start != null && end != null) {
-    return saleRepository.findByEventDateBetween(start, end);
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end,
+
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        SaleQueryCache.Entry page = saleQueryService.cachedPage(start, end, cursor, size);
+        return ResponseEntity.ok()
+                .eTag(page.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(page.page());
+    }
+
+    /**
+     * Acertos, faltas, descartes (limite/TTL) e invalidações do cache de GET /sales.
+     */
+    @GetMapping("/cache/stats")
+    public SaleQueryCache.Stats cacheStats() {
+        return saleQueryCache.stats();
+    }
+
+    /**
+     * Totais agregados no banco, ex.: {@code /sales/summary?groupBy=month,brand&start=2018-01-01}.
+     */
+    @GetMapping("/summary")
+    public List<SaleSummaryReader.Row> summary(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end,
+
+            @RequestParam(value = "groupBy", required = false) String groupBy
+    ) {
+        return saleQueryService.summary(start, end, groupBy);
+    }
+
+    /**
+     * Recalcula o rollup diário a partir das vendas (ex.: depois de uma correção manual no banco),
+     * e o índice de totais a partir dele.
+     */
+    @PostMapping("/summary/rebuild")
+    public Map<String, Long> rebuildSummary() {
+        long rows = saleRollupWriter.rebuild();
+        saleTotalsIndex.reload();
+        return Map.of("rows", rows);
+    }
+
+    /**
+     * Quantidade, total, líquido e taxa das vendas de um estabelecimento no período, ex.:
+     * {@code /sales/totals?establishment=1234567890&start=2018-01-01&end=2018-12-31}.
+     */
+    @GetMapping("/totals")
+    public SaleQueryService.EstablishmentTotals totals(
+            @RequestParam(value = "establishment", required = false) String establishment,
+
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end
+    ) {
+        return saleQueryService.totals(establishment, start, end);
     }
-    if (start != null) {
-    return saleRepository.findByEventDateGreaterThanEqual(start);
+
+    /**
+     * Confere o rollup contra as vendas; {@code mismatches} diferente de zero pede um rebuild.
+     */
+    @GetMapping("/summary/check")
+    public Map<String, Long> checkSummary() {
+        return Map.of("mismatches", saleSummaryReader.countMismatches());
     }
-    if (end != null) {
-    return saleRepository.findByEventDateLessThanEqual(end);
+
+    /**
+     * Exporta o período inteiro como NDJSON, em streaming.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end
+    ) {
+        StreamingResponseBody body = out -> saleQueryService.export(start, end, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
-    return saleRepository.findAll();
- }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.equals.desafio.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Registro de um arquivo já importado, identificado pelo SHA-256 do conteúdo.
+ * Permite reconhecer o reenvio do mesmo arquivo sem reprocessar as linhas.
+ */
+@Entity
+@Table(name = "imported_files")
+public class ImportedFile {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "imported_at", nullable = false)
+    private Instant importedAt;
+
+    @Column(name = "total_lines", nullable = false)
+    private int totalLines;
+
+    @Column(name = "detail_lines", nullable = false)
+    private int detailLines;
+
+    @Column(name = "saved", nullable = false)
+    private int saved;
+
+    @Column(name = "ignored", nullable = false)
+    private int ignored;
+
+    @Column(name = "invalid", nullable = false)
+    private int invalid;
+
+    @Column(name = "duplicates", nullable = false)
+    private int duplicates;
+
+    public ImportedFile() {
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public Instant getImportedAt() {
+        return importedAt;
+    }
+
+    public void setImportedAt(Instant importedAt) {
+        this.importedAt = importedAt;
+    }
+
+    public int getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(int totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public int getDetailLines() {
+        return detailLines;
+    }
+
+    public void setDetailLines(int detailLines) {
+        this.detailLines = detailLines;
+    }
+
+    public int getSaved() {
+        return saved;
+    }
+
+    public void setSaved(int saved) {
+        this.saved = saved;
+    }
+
+    public int getIgnored() {
+        return ignored;
+    }
+
+    public void setIgnored(int ignored) {
+        this.ignored = ignored;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+}
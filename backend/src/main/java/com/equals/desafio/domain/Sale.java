@@ -10,8 +10,11 @@ import java.time.LocalTime;
 @Table(name = "sales")
 public class Sale {
 
+    public static final int ID_ALLOCATION_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_seq")
+    @SequenceGenerator(name = "sales_seq", sequenceName = "sales_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "establishment_code", length = 10, nullable = false)
@@ -0,0 +1,68 @@
+package com.equals.desafio.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totais diários por estabelecimento e bandeira, mantidos a cada lote importado.
+ * É a fonte do /sales/summary; {@code brand} nula nas vendas vira string vazia aqui.
+ */
+@Entity
+@Table(name = "sales_daily_rollup")
+@IdClass(SaleDailyRollup.Key.class)
+public class SaleDailyRollup {
+
+    @Id
+    @Column(name = "event_date", nullable = false)
+    private LocalDate eventDate;
+
+    @Id
+    @Column(name = "establishment_code", length = 10, nullable = false)
+    private String establishmentCode;
+
+    @Id
+    @Column(name = "brand", length = 30, nullable = false)
+    private String brand;
+
+    @Column(name = "sale_count", nullable = false)
+    private long saleCount;
+
+    @Column(name = "total_amount", precision = 24, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "net_amount", precision = 24, scale = 2, nullable = false)
+    private BigDecimal netAmount;
+
+    public SaleDailyRollup() {
+    }
+
+    public LocalDate getEventDate() {
+        return eventDate;
+    }
+
+    public String getEstablishmentCode() {
+        return establishmentCode;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public long getSaleCount() {
+        return saleCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getNetAmount() {
+        return netAmount;
+    }
+
+    public record Key(LocalDate eventDate, String establishmentCode, String brand) implements Serializable {
+    }
+}
@@ -0,0 +1,21 @@
+package com.equals.desafio.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Venda somente leitura, com os mesmos campos do JSON de {@link Sale}. As consultas
+ * devolvem este record em vez da entidade, então a leitura não passa pelo contexto
+ * de persistência (sem snapshot nem dirty checking).
+ */
+public record SaleView(
+        long id,
+        String establishmentCode,
+        LocalDate eventDate,
+        LocalTime eventTime,
+        String brand,
+        BigDecimal totalAmount,
+        String transactionCode,
+        BigDecimal netAmount) {
+}
@@ -1,8 +1,118 @@
 package com.equals.desafio.parser;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout posicional do registro de detalhe (tipo 1): a tabela {@link #DETAIL_FIELDS} cobre os
+ * 530 bytes do registro, em ordem e sem buracos. Só os campos usados pelo sistema têm
+ * semântica garantida; os nomes dos demais seguem o conteúdo do arquivo de exemplo.
+ */
 public final class SaleLayout {
     private SaleLayout() {
     }
 
     public static final int DETAIL_MIN_LENGTH = 530;
-}
\ No newline at end of file
+
+    private static final List<Field> fields = new ArrayList<>();
+
+    public static final Field RECORD_TYPE = field("recordType", 1, 1, Type.TEXT);
+    public static final Field ESTABLISHMENT_CODE = field("establishmentCode", 2, 10, Type.TEXT);
+    public static final Field TRANSACTION_DATE = field("transactionDate", 12, 8, Type.DATE);
+    public static final Field EVENT_DATE = field("eventDate", 20, 8, Type.DATE);
+    public static final Field EVENT_TIME = field("eventTime", 28, 6, Type.TIME);
+    public static final Field EVENT_TYPE = field("eventType", 34, 2, Type.TEXT);
+    public static final Field TRANSACTION_TYPE = field("transactionType", 36, 2, Type.TEXT);
+    public static final Field READER_SERIAL_NUMBER = field("readerSerialNumber", 38, 8, Type.TEXT);
+    public static final Field TRANSACTION_CODE = field("transactionCode", 46, 32, Type.TEXT);
+    public static final Field ORDER_NUMBER = field("orderNumber", 78, 20, Type.TEXT);
+    public static final Field TOTAL_AMOUNT = field("totalAmount", 98, 13, Type.AMOUNT);
+    public static final Field INSTALLMENT_AMOUNT = field("installmentAmount", 111, 13, Type.AMOUNT);
+    public static final Field PAYMENT_TYPE = field("paymentType", 124, 1, Type.TEXT);
+    public static final Field PLAN = field("plan", 125, 2, Type.NUMBER);
+    public static final Field INSTALLMENT = field("installment", 127, 2, Type.NUMBER);
+    public static final Field INSTALLMENT_COUNT = field("installmentCount", 129, 2, Type.NUMBER);
+    public static final Field PAYMENT_DATE = field("paymentDate", 131, 8, Type.DATE);
+    public static final Field DISCOUNT_RATE = field("discountRate", 139, 13, Type.AMOUNT);
+    public static final Field ANTICIPATION_RATE = field("anticipationRate", 152, 13, Type.AMOUNT);
+    public static final Field GROSS_AMOUNT = field("grossAmount", 165, 13, Type.AMOUNT);
+    public static final Field ANTICIPATION_AMOUNT = field("anticipationAmount", 178, 13, Type.AMOUNT);
+    public static final Field FEE_AMOUNT = field("feeAmount", 191, 13, Type.AMOUNT);
+    public static final Field ANTICIPATION_FEE_AMOUNT = field("anticipationFeeAmount", 204, 13, Type.AMOUNT);
+    public static final Field ADJUSTMENT_AMOUNT = field("adjustmentAmount", 217, 13, Type.AMOUNT);
+    public static final Field CANCELLED_AMOUNT = field("cancelledAmount", 230, 13, Type.AMOUNT);
+    public static final Field NET_AMOUNT = field("netAmount", 243, 13, Type.AMOUNT);
+    public static final Field PAYMENT_METHOD = field("paymentMethod", 256, 2, Type.TEXT);
+    private static final Field RESERVED_258 = field("reserved", 258, 2, Type.TEXT);
+    public static final Field CAPTURE_METHOD = field("captureMethod", 260, 2, Type.TEXT);
+    public static final Field BRAND = field("brand", 262, 30, Type.TEXT);
+    public static final Field TERMINAL_TYPE = field("terminalType", 292, 2, Type.TEXT);
+    public static final Field TERMINAL_MODEL = field("terminalModel", 294, 4, Type.TEXT);
+    private static final Field RESERVED_298 = field("reserved", 298, 32, Type.TEXT);
+    public static final Field NSU = field("nsu", 330, 10, Type.TEXT);
+    private static final Field RESERVED_340 = field("reserved", 340, 4, Type.TEXT);
+    public static final Field AUTHORIZATION_CODE = field("authorizationCode", 344, 10, Type.TEXT);
+    public static final Field CARD_BIN = field("cardBin", 354, 6, Type.TEXT);
+    public static final Field CARD_LAST_DIGITS = field("cardLastDigits", 360, 4, Type.TEXT);
+    public static final Field CARD_SEQUENCE_NUMBER = field("cardSequenceNumber", 364, 2, Type.TEXT);
+    private static final Field RESERVED_366 = field("reserved", 366, 165, Type.TEXT);
+
+    /**
+     * Todos os campos do detalhe, na ordem do registro; {@link Field#index()} é a posição na lista.
+     */
+    public static final List<Field> DETAIL_FIELDS = List.copyOf(fields);
+
+    static {
+        Field last = DETAIL_FIELDS.getLast();
+        if (last.end() != DETAIL_MIN_LENGTH) {
+            throw new IllegalStateException("Layout do detalhe termina em " + last.end() + ", esperado "
+                    + DETAIL_MIN_LENGTH + ".");
+        }
+    }
+
+    /**
+     * Se o campo é um dos da tabela do detalhe (e não um campo avulso na mesma posição).
+     */
+    public static boolean isDetailField(Field field) {
+        int index = field.index();
+        return index >= 0 && index < DETAIL_FIELDS.size() && DETAIL_FIELDS.get(index) == field;
+    }
+
+    private static Field field(String name, int start, int length, Type type) {
+        int expected = fields.isEmpty() ? 1 : fields.getLast().end() + 1;
+        if (start != expected) {
+            throw new IllegalStateException("Campo " + name + " começa em " + start + ", esperado " + expected + ".");
+        }
+        Field field = new Field(name, fields.size(), start, length, type);
+        fields.add(field);
+        return field;
+    }
+
+    /**
+     * Como o conteúdo do campo é decodificado pelo {@link SaleRecord}.
+     */
+    public enum Type {
+        TEXT, NUMBER, DATE, TIME, AMOUNT
+    }
+
+    /**
+     * Posição de um campo no registro, 1-based como na especificação do layout.
+     */
+    public record Field(String name, int index, int start, int length, Type type) {
+
+        /**
+         * Campo avulso, fora da tabela do detalhe.
+         */
+        public Field(int start, int length) {
+            this(null, -1, start, length, Type.TEXT);
+        }
+
+        public int offset() {
+            return start - 1;
+        }
+
+        public int end() {
+            return offset() + length;
+        }
+    }
+}
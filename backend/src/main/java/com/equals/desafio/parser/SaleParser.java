@@ -4,6 +4,7 @@ import com.equals.desafio.domain.Sale;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -14,6 +15,8 @@ public class SaleParser {
     private static final DateTimeFormatter DATE_YYYYMMDD = DateTimeFormatter.BASIC_ISO_DATE;
     private static final DateTimeFormatter TIME_HHMMSS = DateTimeFormatter.ofPattern("HHmmss");
 
+    private static final int ASCII_CHECK_END = SaleLayout.BRAND.end();
+
     public Sale parse(String line) {
 
         if (line == null) {
@@ -24,18 +27,18 @@ public class SaleParser {
             line = padRight(line, SaleLayout.DETAIL_MIN_LENGTH);
         }
 
-        String recordType = cut(line, 1, 1);
+        String recordType = cut(line, SaleLayout.RECORD_TYPE);
         if (!"1".equals(recordType)) {
             throw new IllegalArgumentException("Registro não é detalhe (tipo 1). Encontrado: " + recordType);
         }
 
-        String establishmentCode = cut(line, 2, 10).trim();
-        String eventDateStr = cut(line, 20, 8);
-        String eventTimeStr = cut(line, 28, 6);
-        String transactionCode = cut(line, 46, 32).trim();
-        String totalAmountStr = cut(line, 98, 13);
-        String netAmountStr = cut(line, 243, 13);
-        String brand = cut(line, 262, 30).trim();
+        String establishmentCode = cut(line, SaleLayout.ESTABLISHMENT_CODE).trim();
+        String eventDateStr = cut(line, SaleLayout.EVENT_DATE);
+        String eventTimeStr = cut(line, SaleLayout.EVENT_TIME);
+        String transactionCode = cut(line, SaleLayout.TRANSACTION_CODE).trim();
+        String totalAmountStr = cut(line, SaleLayout.TOTAL_AMOUNT);
+        String netAmountStr = cut(line, SaleLayout.NET_AMOUNT);
+        String brand = cut(line, SaleLayout.BRAND).trim();
 
         LocalDate eventDate = LocalDate.parse(eventDateStr, DATE_YYYYMMDD);
 
@@ -46,6 +49,47 @@ public class SaleParser {
         BigDecimal totalAmount = parseMoney13(totalAmountStr);
         BigDecimal netAmount = parseMoney13(netAmountStr);
 
+        return toSale(establishmentCode, eventDate, eventTime, brand, totalAmount, transactionCode, netAmount);
+    }
+
+    /**
+     * Decodifica um registro de detalhe direto dos bytes entre {@code position} e {@code limit},
+     * sem Strings intermediárias. Não altera a posição do buffer. Para várias linhas seguidas,
+     * {@link #parse(SaleRecord)} com uma visão reaproveitada evita uma alocação por linha.
+     */
+    public Sale parse(ByteBuffer record) {
+
+        if (record == null) {
+            throw new IllegalArgumentException("Linha inválida: null");
+        }
+
+        return parse(new SaleRecord().wrap(record));
+    }
+
+    /**
+     * Monta a venda lendo da visão só os campos gravados; os demais campos do registro nem
+     * são decodificados. Registros fora do caminho rápido (não ASCII, tipo diferente de 1) são
+     * delegados a {@link #parse(String)}, e datas/horas inválidas lançam as mesmas exceções,
+     * então o resultado é sempre o mesmo das duas entradas.
+     */
+    public Sale parse(SaleRecord record) {
+
+        if (!record.isDetail() || !record.isAscii(ASCII_CHECK_END)) {
+            return parse(record.line());
+        }
+
+        return toSale(
+                record.establishmentCode(),
+                record.eventDate(),
+                record.eventTime(),
+                record.brand(),
+                record.totalAmount(),
+                record.transactionCode(),
+                record.netAmount());
+    }
+
+    private Sale toSale(String establishmentCode, LocalDate eventDate, LocalTime eventTime, String brand,
+            BigDecimal totalAmount, String transactionCode, BigDecimal netAmount) {
         Sale sale = new Sale();
         sale.setEstablishmentCode(establishmentCode);
         sale.setEventDate(eventDate);
@@ -58,10 +102,8 @@ public class SaleParser {
         return sale;
     }
 
-    private String cut(String line, int start1Based, int length) {
-        int start = start1Based - 1;
-        int end = start + length;
-        return line.substring(start, end);
+    private String cut(String line, SaleLayout.Field field) {
+        return line.substring(field.offset(), field.end());
     }
 
     private BigDecimal parseMoney13(String raw) {
@@ -84,7 +126,7 @@ public class SaleParser {
         return new BigDecimal(digits).movePointLeft(2);
     }
 
-    private String padRight(String s, int n) {
+    static String padRight(String s, int n) {
         if (s.length() >= n)
             return s;
         StringBuilder sb = new StringBuilder(n);
@@ -93,4 +135,4 @@ public class SaleParser {
             sb.append(' ');
         return sb.toString();
     }
-}
\ No newline at end of file
+}
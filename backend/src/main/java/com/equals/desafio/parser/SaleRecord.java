@@ -0,0 +1,365 @@
+package com.equals.desafio.parser;
+
+import com.equals.desafio.parser.SaleLayout.Field;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Visão de um registro de detalhe direto sobre os bytes da linha, sem cópia. Cada campo de
+ * {@link SaleLayout#DETAIL_FIELDS} só é decodificado no primeiro acesso e fica guardado até
+ * o próximo {@link #wrap}; campos que ninguém lê não custam nada.
+ * <p>
+ * A instância é reaproveitada de linha em linha (uma por thread): os valores devolvidos
+ * continuam válidos, mas a visão não, depois de um novo {@code wrap} ou de mexer no buffer.
+ * Bytes além do fim da linha valem espaço, como o padRight do {@link SaleParser#parse(String)}.
+ */
+public final class SaleRecord {
+
+    private static final DateTimeFormatter DATE_YYYYMMDD = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter TIME_HHMMSS = DateTimeFormatter.ofPattern("HHmmss");
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private final Object[] values = new Object[SaleLayout.DETAIL_FIELDS.size()];
+    private final long[] numbers = new long[SaleLayout.DETAIL_FIELDS.size()];
+    private final boolean[] decoded = new boolean[SaleLayout.DETAIL_FIELDS.size()];
+
+    private ByteBuffer buffer;
+    private int base;
+    private int length;
+
+    /**
+     * Passa a ler o registro entre {@code position} e {@code limit} do buffer, sem alterar a posição.
+     */
+    public SaleRecord wrap(ByteBuffer record) {
+        this.buffer = record;
+        this.base = record.position();
+        this.length = record.remaining();
+        Arrays.fill(decoded, false);
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isDetail() {
+        return length > 0 && buffer.get(base) == '1';
+    }
+
+    /**
+     * Se os primeiros {@code count} bytes são ASCII, ou seja, se posição em bytes e em caracteres coincidem.
+     */
+    public boolean isAscii(int count) {
+        for (int i = 0, n = Math.min(count, length); i < n; i++) {
+            if (buffer.get(base + i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isBlank(Field field) {
+        for (int i = field.offset(); i < field.end(); i++) {
+            if (at(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registro inteiro como texto, para mensagens e para o caminho de fallback do parser.
+     */
+    public String line() {
+        byte[] bytes = new byte[length];
+        buffer.get(base, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Conteúdo do campo sem espaços nas pontas ("" se vazio).
+     */
+    public String text(Field field) {
+        if (!cached(field, SaleLayout.Type.TEXT)) {
+            return cache(field, decodeText(field));
+        }
+        return (String) values[field.index()];
+    }
+
+    /**
+     * Valor em reais formado pelos dígitos do campo (duas casas), ignorando qualquer outro
+     * caractere; zero quando o campo não tem dígitos.
+     */
+    public BigDecimal amount(Field field) {
+        if (!cached(field, SaleLayout.Type.AMOUNT)) {
+            long cents = decodeCents(field);
+            return cache(field, cents < 0 ? BigDecimal.ZERO : BigDecimal.valueOf(cents, 2));
+        }
+        return (BigDecimal) values[field.index()];
+    }
+
+    /**
+     * Inteiro formado pelos dígitos do campo, ignorando espaços; zero quando vazio.
+     *
+     * @throws NumberFormatException se o campo tem algo além de dígitos e espaços
+     */
+    public long number(Field field) {
+        if (!cached(field, SaleLayout.Type.NUMBER)) {
+            long value = decodeNumber(field);
+            if (SaleLayout.isDetailField(field)) {
+                numbers[field.index()] = value;
+                decoded[field.index()] = true;
+            }
+            return value;
+        }
+        return numbers[field.index()];
+    }
+
+    /**
+     * Data no formato yyyyMMdd. Datas inválidas ou em branco lançam a mesma exceção de
+     * {@link LocalDate#parse}, com a mesma mensagem.
+     */
+    public LocalDate date(Field field) {
+        if (!cached(field, SaleLayout.Type.DATE)) {
+            long epochDay = decodeEpochDay(field);
+            return cache(field, epochDay == Long.MIN_VALUE
+                    ? LocalDate.parse(raw(field), DATE_YYYYMMDD)
+                    : LocalDate.ofEpochDay(epochDay));
+        }
+        return (LocalDate) values[field.index()];
+    }
+
+    /**
+     * Hora no formato HHmmss, ou null se o campo está em branco. Horas inválidas lançam a
+     * mesma exceção de {@link LocalTime#parse}.
+     */
+    public LocalTime time(Field field) {
+        if (!cached(field, SaleLayout.Type.TIME)) {
+            if (isBlank(field)) {
+                return cache(field, null);
+            }
+            int secondOfDay = decodeSecondOfDay(field);
+            return cache(field, secondOfDay < 0
+                    ? LocalTime.parse(raw(field).trim(), TIME_HHMMSS)
+                    : LocalTime.ofSecondOfDay(secondOfDay));
+        }
+        return (LocalTime) values[field.index()];
+    }
+
+    public String establishmentCode() {
+        return text(SaleLayout.ESTABLISHMENT_CODE);
+    }
+
+    public LocalDate eventDate() {
+        return date(SaleLayout.EVENT_DATE);
+    }
+
+    public LocalTime eventTime() {
+        return time(SaleLayout.EVENT_TIME);
+    }
+
+    public String transactionCode() {
+        return text(SaleLayout.TRANSACTION_CODE);
+    }
+
+    public BigDecimal totalAmount() {
+        return amount(SaleLayout.TOTAL_AMOUNT);
+    }
+
+    public BigDecimal netAmount() {
+        return amount(SaleLayout.NET_AMOUNT);
+    }
+
+    public String brand() {
+        return text(SaleLayout.BRAND);
+    }
+
+    public int installment() {
+        return (int) number(SaleLayout.INSTALLMENT);
+    }
+
+    public int installmentCount() {
+        return (int) number(SaleLayout.INSTALLMENT_COUNT);
+    }
+
+    public LocalDate paymentDate() {
+        return date(SaleLayout.PAYMENT_DATE);
+    }
+
+    public BigDecimal grossAmount() {
+        return amount(SaleLayout.GROSS_AMOUNT);
+    }
+
+    public BigDecimal feeAmount() {
+        return amount(SaleLayout.FEE_AMOUNT);
+    }
+
+    public String cardBin() {
+        return text(SaleLayout.CARD_BIN);
+    }
+
+    public String cardLastDigits() {
+        return text(SaleLayout.CARD_LAST_DIGITS);
+    }
+
+    /**
+     * Se o valor do campo já está guardado. Campos avulsos (fora da tabela) nunca ficam
+     * guardados e podem ser lidos com qualquer tipo; os da tabela só com o próprio tipo.
+     */
+    private boolean cached(Field field, SaleLayout.Type type) {
+        if (!SaleLayout.isDetailField(field)) {
+            return false;
+        }
+        if (field.type() != type) {
+            throw new IllegalArgumentException("Campo " + field.name() + " é " + field.type() + ", não " + type + ".");
+        }
+        return decoded[field.index()];
+    }
+
+    private <T> T cache(Field field, T value) {
+        if (SaleLayout.isDetailField(field)) {
+            values[field.index()] = value;
+            decoded[field.index()] = true;
+        }
+        return value;
+    }
+
+    private int at(int index) {
+        return index < length ? buffer.get(base + index) & 0xFF : ' ';
+    }
+
+    private int digit(int index) {
+        int c = at(index);
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int d = digit(i);
+            if (d < 0) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private String raw(Field field) {
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = field.offset(); i < field.end(); i++) {
+            sb.append((char) at(i));
+        }
+        return sb.toString();
+    }
+
+    private String decodeText(Field field) {
+        int start = field.offset();
+        int end = Math.min(field.end(), length);
+
+        while (start < end && at(start) <= ' ') {
+            start++;
+        }
+        while (end > start && at(end - 1) <= ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return "";
+        }
+
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + base + start, end - start,
+                    StandardCharsets.US_ASCII);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(base + start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Centavos formados pelos dígitos do campo; -1 quando o campo não tem dígitos.
+     */
+    private long decodeCents(Field field) {
+        long cents = 0;
+        boolean any = false;
+        for (int i = field.offset(); i < field.end(); i++) {
+            int d = digit(i);
+            if (d >= 0) {
+                cents = cents * 10 + d;
+                any = true;
+            }
+        }
+        return any ? cents : -1;
+    }
+
+    private long decodeNumber(Field field) {
+        long value = 0;
+        for (int i = field.offset(); i < field.end(); i++) {
+            int c = at(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + c - '0';
+            } else if (c != ' ') {
+                throw new NumberFormatException("Campo " + field.name() + " não numérico: '" + raw(field) + "'");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Epoch-day da data yyyyMMdd, ou Long.MIN_VALUE se não for uma data válida.
+     */
+    private long decodeEpochDay(Field field) {
+        int offset = field.offset();
+        int year = digits(offset, 4);
+        int month = digits(offset + 4, 2);
+        int day = digits(offset + 6, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeap(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Segundo do dia da hora HHmmss, ou -1 se não for uma hora válida.
+     */
+    private int decodeSecondOfDay(Field field) {
+        int offset = field.offset();
+        int hour = digits(offset, 2);
+        int minute = digits(offset + 2, 2);
+        int second = digits(offset + 4, 2);
+
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return -1;
+        }
+        return hour * 3600 + minute * 60 + second;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
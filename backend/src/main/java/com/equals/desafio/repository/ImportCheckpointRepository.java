@@ -0,0 +1,18 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+
+    /**
+     * Sem readOnly: com leituras em réplicas (app.read-routing), a retomada lê o checkpoint
+     * do primário, onde ele acabou de ser gravado.
+     */
+    @Override
+    @Transactional
+    Optional<ImportCheckpoint> findById(String contentHash);
+}
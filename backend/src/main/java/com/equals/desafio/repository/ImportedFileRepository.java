@@ -0,0 +1,35 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.ImportedFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ImportedFileRepository extends JpaRepository<ImportedFile, String> {
+
+    /**
+     * Sem readOnly: com leituras em réplicas (app.read-routing), a deduplicação de arquivos
+     * consulta o primário e não deixa passar um arquivo recém-registrado.
+     */
+    @Override
+    @Transactional
+    Optional<ImportedFile> findById(String contentHash);
+
+    /**
+     * Registra o arquivo, a não ser que o mesmo conteúdo já esteja registrado: duas importações
+     * simultâneas do mesmo arquivo não falham na chave primária. Devolve 1 se registrou, 0 se
+     * já havia registro.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO imported_files (content_hash, size_bytes, imported_at, total_lines, detail_lines, "
+            + "saved, ignored, invalid, duplicates) VALUES (:#{#file.contentHash}, :#{#file.sizeBytes}, "
+            + ":#{#file.importedAt}, :#{#file.totalLines}, :#{#file.detailLines}, :#{#file.saved}, "
+            + ":#{#file.ignored}, :#{#file.invalid}, :#{#file.duplicates}) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("file") ImportedFile file);
+}
@@ -0,0 +1,316 @@
+package com.equals.desafio.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conexões somente leitura (transações {@code readOnly}, exportação) vão para uma réplica;
+ * o resto fica no primário, via {@link #writer()}. Entre as réplicas saudáveis, vai para a
+ * com menos conexões em uso (empate: rodízio); sem nenhuma disponível, para o primário.
+ * <p>
+ * Saúde: uma verificação periódica consulta cada réplica; falhar ao abrir conexão tira a
+ * réplica de uso até a próxima verificação bem-sucedida. Pool esgotado não conta como falha:
+ * a leitura tenta a próxima réplica (ou o primário) e a réplica segue no rodízio.
+ * <p>
+ * Read-your-writes (opcional): cada commit no primário guarda a posição do WAL logo depois
+ * dele, e uma réplica só atende leituras quando já reproduziu até essa posição. Em autocommit
+ * não há commit explícito: a posição é guardada quando a conexão volta ao pool (ou sai do
+ * autocommit), depois dos comandos; até lá, uma leitura concorrente pode vir de réplica
+ * atrasada. Vale para as gravações desta instância, inclusive a invalidação do cache de
+ * consultas, que acontece depois do commit.
+ */
+public class ReadRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // Posição do WAL em bytes. Fora de recuperação (um segundo primário usado como réplica
+    // em testes locais), a posição atual dele.
+    static final String POSITION_SQL = "SELECT (CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() "
+            + "ELSE pg_current_wal_lsn() END - '0/0'::pg_lsn)::bigint";
+
+    static final String WRITE_POSITION_SQL = "SELECT (pg_current_wal_lsn() - '0/0'::pg_lsn)::bigint";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final boolean readYourWrites;
+    private final DataSource writer = new Writer();
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private final Counter primaryReads;
+
+    public ReadRoutingDataSource(DataSource primary, List<Replica> replicas, boolean readYourWrites,
+            Duration checkInterval, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+
+        for (Replica replica : this.replicas) {
+            replica.reads = Counter.builder("datasource.reads").tag("target", replica.name).register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        this.primaryReads = Counter.builder("datasource.reads").tag("target", "primary").register(registry);
+
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-routing-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        checker.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * O primário, guardando a posição do WAL a cada commit (com read-your-writes).
+     */
+    public DataSource writer() {
+        return writer;
+    }
+
+    /**
+     * Conexão para leitura: de uma réplica saudável (e em dia com as gravações, com
+     * read-your-writes) ou, sem nenhuma, do primário. Sempre marcada como somente leitura.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long required = readYourWrites ? writePosition.get() : 0;
+        for (Replica replica : candidates()) {
+            Connection connection;
+            try {
+                connection = replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                if (!busy(e)) {
+                    replica.healthy = false;
+                }
+                continue;
+            }
+            try {
+                if (replica.position < required && !caughtUp(replica, connection, required)) {
+                    connection.close();
+                    continue;
+                }
+                connection.setReadOnly(true);
+            } catch (SQLException e) {
+                replica.healthy = false;
+                connection.close();
+                continue;
+            }
+            replica.reads.increment();
+            return replica.track(connection);
+        }
+        primaryReads.increment();
+        Connection connection = primary.getConnection();
+        connection.setReadOnly(true);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ignored) {
+                    // encerrando a aplicação
+                }
+            }
+        }
+    }
+
+    /**
+     * Verificação de saúde: abre uma conexão em cada réplica e atualiza a posição do WAL.
+     */
+    void check() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.position = position(connection, POSITION_SQL);
+                replica.healthy = true;
+            } catch (SQLException e) {
+                if (!busy(e)) {
+                    replica.healthy = false;
+                }
+            }
+        }
+    }
+
+    // Réplicas saudáveis, da com menos conexões em uso para a com mais; o ponto de partida
+    // gira a cada chamada para desempatar.
+    private List<Replica> candidates() {
+        int size = replicas.size();
+        List<Replica> healthy = new ArrayList<>(size);
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        healthy.sort((a, b) -> Integer.compare(a.active.get(), b.active.get()));
+        return healthy;
+    }
+
+    // Pool da réplica sem conexão livre no prazo: o Hikari não informa causa. Com o banco fora
+    // do ar, a exceção é a mesma, mas traz a falha do driver como causa.
+    private static boolean busy(SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private static boolean caughtUp(Replica replica, Connection connection, long required) throws SQLException {
+        replica.position = position(connection, POSITION_SQL);
+        return replica.position >= required;
+    }
+
+    private static long position(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void recordWritePosition(Connection connection) {
+        try {
+            long position = position(connection, WRITE_POSITION_SQL);
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            writePosition.accumulateAndGet(position, Math::max);
+        } catch (SQLException ignored) {
+            // o commit já aconteceu; sem a posição, leituras seguintes podem vir de uma
+            // réplica atrasada até o próximo commit
+        }
+    }
+
+    /**
+     * Uma réplica: nome (nas métricas), pool de conexões e o último estado conhecido.
+     */
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicInteger active = new AtomicInteger();
+        private volatile boolean healthy = true;
+        private volatile long position;
+        private Counter reads;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        // Conta a conexão como em uso até o close.
+        Connection track(Connection connection) {
+            active.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            active.decrementAndGet();
+                        }
+                        return invoke(proxy, connection, method, args);
+                    });
+        }
+    }
+
+    private final class Writer extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return track(primary.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return track(primary.getConnection(username, password));
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+
+        // Guarda a posição depois de cada commit e, para comandos em autocommit, antes de a
+        // conexão voltar ao pool ou sair do autocommit.
+        private Connection track(Connection connection) {
+            if (!readYourWrites) {
+                return connection;
+            }
+            AtomicBoolean autoCommitted = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "createStatement", "prepareStatement", "prepareCall" -> {
+                                if (connection.getAutoCommit()) {
+                                    autoCommitted.set(true);
+                                }
+                            }
+                            case "setAutoCommit", "close" -> {
+                                if (autoCommitted.getAndSet(false)) {
+                                    recordWritePosition(connection);
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                        Object result = invoke(proxy, connection, method, args);
+                        if (method.getName().equals("commit")) {
+                            recordWritePosition(connection);
+                        }
+                        return result;
+                    });
+        }
+    }
+
+    // Repassa a chamada à conexão real; igualdade e hash ficam no proxy.
+    private static Object invoke(Object proxy, Connection target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            default -> {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }
+        }
+    }
+}
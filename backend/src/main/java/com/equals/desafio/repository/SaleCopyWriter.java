@@ -0,0 +1,130 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Grava lotes de vendas via {@code COPY ... FROM STDIN}, sem passar pelo contexto de
+ * persistência do JPA. O COPY vai para uma tabela temporária de staging e de lá um único
+ * comando registra os transaction codes em {@code sale_transaction_codes} (ON CONFLICT DO
+ * NOTHING), move para {@code sales} só as vendas cujo código foi registrado agora e soma
+ * essas vendas ao rollup diário. Os totais das vendas inseridas voltam por (estabelecimento, dia).
+ * Usa a conexão da transação corrente, então participa do mesmo commit/rollback da importação.
+ */
+@Repository
+public class SaleCopyWriter {
+
+    private static final String COLUMNS = "id, establishment_code, event_date, event_time, brand, "
+            + "total_amount, transaction_code, net_amount";
+
+    static final String STAGING_SQL = "CREATE TEMP TABLE IF NOT EXISTS sales_staging "
+            + "(LIKE sales INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+
+    static final String COPY_SQL = "COPY sales_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    // Códigos reservados em ordem, para importações simultâneas travarem na mesma ordem.
+    static final String MERGE_SQL = "WITH claimed AS ("
+            + "INSERT INTO sale_transaction_codes (transaction_code) SELECT transaction_code "
+            + "FROM sales_staging WHERE transaction_code IS NOT NULL ORDER BY transaction_code "
+            + "ON CONFLICT DO NOTHING RETURNING transaction_code), "
+            + "inserted AS (INSERT INTO sales (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM sales_staging s WHERE s.transaction_code IS NULL "
+            + "OR s.transaction_code IN (SELECT transaction_code FROM claimed) RETURNING *), "
+            + "rollup AS (" + SaleRollupWriter.upsertFrom("inserted") + ") "
+            + "SELECT establishment_code, event_date, count(*), (sum(total_amount) * 100)::bigint, "
+            + "(COALESCE(sum(net_amount), 0) * 100)::bigint FROM inserted GROUP BY 1, 2";
+
+    private static final String CLEAR_STAGING_SQL = "TRUNCATE sales_staging";
+
+    private static final String NEXT_IDS_SQL = "SELECT nextval('sales_seq') FROM generate_series(1, ?)";
+
+    private final DataSource dataSource;
+
+    public SaleCopyWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Grava o lote e devolve quantas vendas foram de fato inseridas; as demais já
+     * existiam (mesmo transaction code). Os totais das inseridas vão para {@code totals}.
+     */
+    public int copy(List<Sale> batch, SaleTotalsSink totals) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            long[] ids = allocateIds(connection, batch.size());
+
+            StringBuilder csv = new StringBuilder(batch.size() * 128);
+            for (int i = 0; i < batch.size(); i++) {
+                SaleCsvEncoder.append(csv, ids[i], batch.get(i));
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(STAGING_SQL);
+
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+
+                int inserted = 0;
+                try (ResultSet rs = statement.executeQuery(MERGE_SQL)) {
+                    while (rs.next()) {
+                        long count = rs.getLong(3);
+                        inserted += (int) count;
+                        totals.add(rs.getString(1), rs.getObject(2, LocalDate.class), count,
+                                rs.getLong(4), rs.getLong(5));
+                    }
+                }
+                statement.execute(CLEAR_STAGING_SQL);
+                return inserted;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Falha no COPY de vendas: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Reserva ids com a mesma semântica do otimizador "pooled" do Hibernate:
+     * cada valor v da sequence cobre o intervalo (v - ID_ALLOCATION_SIZE, v].
+     */
+    private long[] allocateIds(Connection connection, int count) throws SQLException {
+        long[] ids = new long[count];
+        int filled = 0;
+
+        while (filled < count) {
+            int blocks = (count - filled + Sale.ID_ALLOCATION_SIZE - 1) / Sale.ID_ALLOCATION_SIZE;
+
+            try (PreparedStatement ps = connection.prepareStatement(NEXT_IDS_SQL)) {
+                ps.setInt(1, blocks);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next() && filled < count) {
+                        long hi = rs.getLong(1);
+                        long lo = Math.max(1, hi - Sale.ID_ALLOCATION_SIZE + 1);
+                        for (long id = lo; id <= hi && filled < count; id++) {
+                            ids[filled++] = id;
+                        }
+                    }
+                }
+            }
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,55 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+
+import java.math.BigDecimal;
+
+final class SaleCsvEncoder {
+
+    private SaleCsvEncoder() {
+    }
+
+    static void append(StringBuilder out, long id, Sale sale) {
+        out.append(id).append(',');
+        appendText(out, sale.getEstablishmentCode());
+        out.append(',');
+        if (sale.getEventDate() != null) {
+            out.append(sale.getEventDate());
+        }
+        out.append(',');
+        if (sale.getEventTime() != null) {
+            out.append(sale.getEventTime());
+        }
+        out.append(',');
+        appendText(out, sale.getBrand());
+        out.append(',');
+        appendMoney(out, sale.getTotalAmount());
+        out.append(',');
+        appendText(out, sale.getTransactionCode());
+        out.append(',');
+        appendMoney(out, sale.getNetAmount());
+        out.append('\n');
+    }
+
+    // Texto sempre entre aspas: no CSV do COPY, campo vazio sem aspas é NULL.
+    private static void appendText(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void appendMoney(StringBuilder out, BigDecimal value) {
+        if (value != null) {
+            out.append(value.toPlainString());
+        }
+    }
+}
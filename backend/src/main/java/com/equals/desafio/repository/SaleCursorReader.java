@@ -0,0 +1,72 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.SaleView;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.function.Consumer;
+
+/**
+ * Percorre as vendas de um período com um cursor do servidor (fetch size), sem carregar
+ * o resultado inteiro nem passar pelo contexto de persistência. Usado na exportação.
+ */
+@Repository
+public class SaleCursorReader {
+
+    static final int FETCH_SIZE = 1000;
+
+    static final String SELECT_SQL = "SELECT id, establishment_code, event_date, event_time, brand, "
+            + "total_amount, transaction_code, net_amount FROM sales "
+            + "WHERE event_date BETWEEN ? AND ? ORDER BY event_date, id";
+
+    private final DataSource dataSource;
+
+    public SaleCursorReader(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Entrega cada venda do período, em ordem de (eventDate, id), ao consumidor.
+     * O driver do PostgreSQL só usa cursor com autocommit desligado, então a leitura
+     * roda numa transação somente leitura própria.
+     */
+    public void forEach(LocalDate start, LocalDate end, Consumer<SaleView> action) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setObject(1, start);
+                ps.setObject(2, end);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(map(rs));
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao ler vendas: " + e.getMessage(), e);
+        }
+    }
+
+    private static SaleView map(ResultSet rs) throws SQLException {
+        return new SaleView(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getObject(3, LocalDate.class),
+                rs.getObject(4, LocalTime.class),
+                rs.getString(5),
+                rs.getBigDecimal(6),
+                rs.getString(7),
+                rs.getBigDecimal(8));
+    }
+}
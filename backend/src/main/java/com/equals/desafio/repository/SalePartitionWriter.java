@@ -0,0 +1,40 @@
+package com.equals.desafio.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cria as partições mensais de sales (função create_sales_partition, da migration V2).
+ * Vendas de meses sem partição ficam em sales_default até a partição do mês ser criada.
+ */
+@Repository
+public class SalePartitionWriter {
+
+    private static final String CREATE_SQL = "SELECT create_sales_partition(?)";
+
+    private static final String DEFAULT_MONTHS_SQL =
+            "SELECT DISTINCT date_trunc('month', event_date)::date FROM sales_default ORDER BY 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalePartitionWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Cria a partição do mês de {@code month}, se ainda não existe. Devolve true quando criou.
+     */
+    public boolean createMonth(LocalDate month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(CREATE_SQL, Boolean.class, month));
+    }
+
+    /**
+     * Meses (primeiro dia) que têm vendas na partição default.
+     */
+    public List<LocalDate> monthsInDefault() {
+        return jdbcTemplate.queryForList(DEFAULT_MONTHS_SQL, LocalDate.class);
+    }
+}
@@ -1,15 +1,28 @@
 package com.equals.desafio.repository;
 
 import com.equals.desafio.domain.Sale;
+import com.equals.desafio.domain.SaleView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 
-public interface SaleRepository extends JpaRepository<Sale, Long> {
-    List<Sale> findByEventDateBetween(LocalDate start, LocalDate end);
+public interface SaleRepository extends JpaRepository<Sale, Long>, SaleRepositoryCustom {
 
-    List<Sale> findByEventDateGreaterThanEqual(LocalDate start);
-
-    List<Sale> findByEventDateLessThanEqual(LocalDate end);
-}
\ No newline at end of file
+    /**
+     * Página por keyset: vendas do período depois da posição (afterDate, afterId),
+     * na ordem de (eventDate, id). Usa o índice ix_sales_event_date_id em vez de OFFSET.
+     * Somente leitura: vai para uma réplica com app.read-routing.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.equals.desafio.domain.SaleView(s.id, s.establishmentCode, s.eventDate, "
+            + "s.eventTime, s.brand, s.totalAmount, s.transactionCode, s.netAmount) from Sale s "
+            + "where s.eventDate between :start and :end "
+            + "and (s.eventDate, s.id) > (:afterDate, :afterId) order by s.eventDate, s.id")
+    List<SaleView> findPageAfter(@Param("start") LocalDate start, @Param("end") LocalDate end,
+            @Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId, Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.equals.desafio.repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface SaleRepositoryCustom {
+    void flushAndClear();
+
+    /**
+     * Registra os transaction codes em sale_transaction_codes e devolve os que já
+     * estavam registrados (vendas que já existem). Os demais ficam reservados para
+     * a transação corrente.
+     */
+    Set<String> reserveTransactionCodes(Collection<String> codes);
+}
@@ -0,0 +1,47 @@
+package com.equals.desafio.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SaleRepositoryCustomImpl implements SaleRepositoryCustom {
+
+    // Em ordem de código, como no COPY: importações simultâneas com códigos em comum travam
+    // as mesmas linhas na mesma ordem, em vez de uma esperar pela outra em ciclo.
+    private static final String RESERVE_CODES_SQL = "INSERT INTO sale_transaction_codes (transaction_code) "
+            + "SELECT DISTINCT code FROM unnest(cast(:codes as varchar[])) AS code WHERE code IS NOT NULL "
+            + "ORDER BY code ON CONFLICT DO NOTHING RETURNING transaction_code";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public Set<String> reserveTransactionCodes(Collection<String> codes) {
+        Set<String> taken = new HashSet<>();
+        for (String code : codes) {
+            if (code != null) {
+                taken.add(code);
+            }
+        }
+        if (taken.isEmpty()) {
+            return taken;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> reserved = entityManager.createNativeQuery(RESERVE_CODES_SQL, String.class)
+                .setParameter("codes", taken.toArray(String[]::new))
+                .getResultList();
+        reserved.forEach(taken::remove);
+        return taken;
+    }
+}
@@ -0,0 +1,87 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Mantém {@code sales_daily_rollup}: cada lote gravado soma seus totais (delta) às linhas
+ * de (data, estabelecimento, bandeira) com um único upsert, na mesma transação do lote.
+ */
+@Repository
+public class SaleRollupWriter {
+
+    private static final String ADD_SALES_SQL = upsertFrom("unnest(?::date[], ?::varchar[], ?::varchar[], "
+            + "?::numeric[], ?::numeric[]) AS s(event_date, establishment_code, brand, total_amount, net_amount)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SaleRollupWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Upsert que agrega as vendas de {@code source} (tabela ou CTE com as colunas de sales)
+     * e soma ao rollup. As chaves vão ordenadas para que importações concorrentes
+     * travem as linhas do rollup sempre na mesma ordem.
+     */
+    static String upsertFrom(String source) {
+        return "INSERT INTO sales_daily_rollup AS r "
+                + "(event_date, establishment_code, brand, sale_count, total_amount, net_amount) "
+                + "SELECT event_date, establishment_code, COALESCE(brand, ''), count(*), "
+                + "sum(total_amount), COALESCE(sum(net_amount), 0) "
+                + "FROM " + source + " GROUP BY 1, 2, 3 ORDER BY 1, 2, 3 "
+                + "ON CONFLICT (event_date, establishment_code, brand) DO UPDATE SET "
+                + "sale_count = r.sale_count + EXCLUDED.sale_count, "
+                + "total_amount = r.total_amount + EXCLUDED.total_amount, "
+                + "net_amount = r.net_amount + EXCLUDED.net_amount";
+    }
+
+    /**
+     * Soma ao rollup as vendas recém-gravadas. Os valores vão como arrays, sem reler
+     * as vendas de sales (que, particionada, não tem índice só por id).
+     */
+    public void addSales(List<Sale> sales) {
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        int size = sales.size();
+        Object[] dates = new Object[size];
+        Object[] establishments = new Object[size];
+        Object[] brands = new Object[size];
+        Object[] totals = new Object[size];
+        Object[] nets = new Object[size];
+        for (int i = 0; i < size; i++) {
+            Sale sale = sales.get(i);
+            dates[i] = sale.getEventDate();
+            establishments[i] = sale.getEstablishmentCode();
+            brands[i] = sale.getBrand();
+            totals[i] = sale.getTotalAmount();
+            nets[i] = sale.getNetAmount();
+        }
+
+        jdbcTemplate.update(connection -> {
+            var ps = connection.prepareStatement(ADD_SALES_SQL);
+            ps.setArray(1, connection.createArrayOf("date", dates));
+            ps.setArray(2, connection.createArrayOf("varchar", establishments));
+            ps.setArray(3, connection.createArrayOf("varchar", brands));
+            ps.setArray(4, connection.createArrayOf("numeric", totals));
+            ps.setArray(5, connection.createArrayOf("numeric", nets));
+            return ps;
+        });
+    }
+
+    /**
+     * Recalcula o rollup inteiro a partir de sales. O TRUNCATE segura as importações
+     * em andamento até o fim, então nenhum delta se perde nem é contado duas vezes.
+     */
+    @Transactional
+    public long rebuild() {
+        jdbcTemplate.execute("TRUNCATE sales_daily_rollup");
+        return jdbcTemplate.update(upsertFrom("sales"));
+    }
+}
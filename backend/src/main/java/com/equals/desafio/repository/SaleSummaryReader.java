@@ -0,0 +1,121 @@
+package com.equals.desafio.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Totais de vendas agregados no banco, lidos de {@code sales_daily_rollup} em vez das
+ * vendas uma a uma. As dimensões são escolhidas entre valores fixos, então o SQL montado
+ * não recebe texto vindo da requisição. Somente leitura: com app.read-routing, as consultas
+ * vão para uma réplica.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class SaleSummaryReader {
+
+    // Compara o rollup com a agregação direta de sales; deve ser sempre zero.
+    static final String MISMATCHES_SQL = "SELECT count(*) FROM ("
+            + "SELECT event_date, establishment_code, COALESCE(brand, '') AS brand, count(*) AS sale_count, "
+            + "sum(total_amount) AS total_amount, COALESCE(sum(net_amount), 0) AS net_amount "
+            + "FROM sales GROUP BY 1, 2, 3) s "
+            + "FULL JOIN sales_daily_rollup r USING (event_date, establishment_code, brand) "
+            + "WHERE s.sale_count IS DISTINCT FROM r.sale_count "
+            + "OR s.total_amount IS DISTINCT FROM r.total_amount "
+            + "OR s.net_amount IS DISTINCT FROM r.net_amount";
+
+    static final String ESTABLISHMENT_TOTALS_SQL = "SELECT COALESCE(sum(sale_count), 0), "
+            + "COALESCE((sum(total_amount) * 100)::bigint, 0), COALESCE((sum(net_amount) * 100)::bigint, 0) "
+            + "FROM sales_daily_rollup WHERE establishment_code = ? AND event_date BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SaleSummaryReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Row> summarize(LocalDate start, LocalDate end, Period period,
+            boolean byEstablishment, boolean byBrand) {
+        return jdbcTemplate.query(buildSql(period, byEstablishment, byBrand),
+                (rs, rowNum) -> new Row(
+                        rs.getObject(1, LocalDate.class),
+                        rs.getString(2),
+                        rs.getString(3),
+                        rs.getLong(4),
+                        rs.getBigDecimal(5),
+                        rs.getBigDecimal(6),
+                        rs.getBigDecimal(5).subtract(rs.getBigDecimal(6))),
+                start, end);
+    }
+
+    /**
+     * Quantidade e somas (em centavos) das vendas de um estabelecimento no período: o caminho
+     * pelo banco de GET /sales/totals, quando o índice em memória está desligado.
+     */
+    public Totals establishmentTotals(String establishmentCode, LocalDate start, LocalDate end) {
+        return jdbcTemplate.queryForObject(ESTABLISHMENT_TOTALS_SQL,
+                (rs, rowNum) -> new Totals(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                establishmentCode, start, end);
+    }
+
+    static String buildSql(Period period, boolean byEstablishment, boolean byBrand) {
+        return "SELECT "
+                + (period != null ? period.expression : "NULL::date") + " AS period, "
+                + (byEstablishment ? "establishment_code" : "NULL") + " AS establishment_code, "
+                + (byBrand ? "NULLIF(brand, '')" : "NULL") + " AS brand, "
+                + "sum(sale_count), "
+                + "sum(total_amount), "
+                + "sum(net_amount) "
+                + "FROM sales_daily_rollup "
+                + "WHERE event_date BETWEEN ? AND ? "
+                + "GROUP BY 1, 2, 3 "
+                + "ORDER BY 1, 2, 3";
+    }
+
+    /**
+     * Quantidade de combinações (data, estabelecimento, bandeira) em que o rollup
+     * difere das vendas gravadas.
+     */
+    public long countMismatches() {
+        Long mismatches = jdbcTemplate.queryForObject(MISMATCHES_SQL, Long.class);
+        return mismatches != null ? mismatches : 0;
+    }
+
+    public enum Period {
+        DAY("event_date"),
+        WEEK("date_trunc('week', event_date)::date"),
+        MONTH("date_trunc('month', event_date)::date");
+
+        private final String expression;
+
+        Period(String expression) {
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * Uma linha do resumo. Dimensões não agrupadas vêm nulas; {@code period} é o
+     * primeiro dia do período (semana começando na segunda-feira).
+     */
+    public record Row(
+            LocalDate period,
+            String establishmentCode,
+            String brand,
+            long count,
+            BigDecimal totalAmount,
+            BigDecimal netAmount,
+            BigDecimal feeAmount) {
+    }
+
+    /**
+     * Quantidade e somas de um estabelecimento num período, com os valores em centavos.
+     */
+    public record Totals(long count, long totalCents, long netCents) {
+
+        public static final Totals ZERO = new Totals(0, 0, 0);
+    }
+}
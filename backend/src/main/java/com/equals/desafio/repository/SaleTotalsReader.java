@@ -0,0 +1,63 @@
+package com.equals.desafio.repository;
+
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Lê de {@code sales_daily_rollup} os totais por (estabelecimento, dia), somadas as bandeiras,
+ * para montar o índice de totais em memória.
+ */
+@Repository
+public class SaleTotalsReader {
+
+    static final int FETCH_SIZE = 10_000;
+
+    // Bloqueia gravações no rollup até o fim da leitura: quem gravar depois entra no índice
+    // pelo caminho normal (depois do commit), sem ser contado duas vezes nem perdido.
+    static final String LOCK_SQL = "LOCK TABLE sales_daily_rollup IN SHARE MODE";
+
+    static final String SELECT_SQL = "SELECT establishment_code, event_date, sum(sale_count), "
+            + "(sum(total_amount) * 100)::bigint, (sum(net_amount) * 100)::bigint "
+            + "FROM sales_daily_rollup GROUP BY 1, 2 ORDER BY 1, 2";
+
+    private final DataSource dataSource;
+
+    public SaleTotalsReader(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Entrega as linhas ordenadas por (estabelecimento, dia), com cursor do servidor, numa
+     * transação própria que segura as gravações no rollup até {@code sink} receber a última.
+     * {@code locked} roda com o lock já obtido, antes da leitura.
+     */
+    public void forEach(Runnable locked, SaleTotalsSink sink) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement lock = connection.createStatement();
+                    PreparedStatement ps = connection.prepareStatement(
+                            SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                lock.execute(LOCK_SQL);
+                locked.run();
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        sink.add(rs.getString(1), rs.getObject(2, LocalDate.class),
+                                rs.getLong(3), rs.getLong(4), rs.getLong(5));
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao ler o rollup diário: " + e.getMessage(), e);
+        }
+    }
+}
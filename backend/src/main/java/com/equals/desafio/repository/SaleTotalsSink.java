@@ -0,0 +1,38 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Recebe totais de vendas por (estabelecimento, dia), com valores em centavos: das vendas
+ * gravadas por um lote ou das linhas lidas do rollup.
+ */
+public interface SaleTotalsSink {
+
+    SaleTotalsSink NONE = new SaleTotalsSink() {
+        @Override
+        public void add(String establishmentCode, LocalDate day, long count, long totalCents, long netCents) {
+        }
+
+        @Override
+        public void add(Sale sale) {
+        }
+    };
+
+    void add(String establishmentCode, LocalDate day, long count, long totalCents, long netCents);
+
+    default void add(Sale sale) {
+        add(sale.getEstablishmentCode(), sale.getEventDate(), 1,
+                cents(sale.getTotalAmount()), cents(sale.getNetAmount()));
+    }
+
+    /**
+     * Centavos do valor, arredondado como a coluna numeric(19, 2); null vale zero, como no rollup.
+     */
+    static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,12 @@
+package com.equals.desafio.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Fonte de blocos para o {@link ImportPipeline}. Cada bloco contém apenas linhas completas
+ * (entre position e limit); {@code null} indica o fim do arquivo.
+ */
+interface BlockSource {
+    ByteBuffer next() throws IOException;
+}
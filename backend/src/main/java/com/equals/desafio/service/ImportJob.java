@@ -0,0 +1,193 @@
+package com.equals.desafio.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Importação executada em segundo plano. Os contadores são escritos apenas pela thread
+ * da importação e lidos pelas requisições de acompanhamento. As linhas rejeitadas vão
+ * para o {@link RejectedLineSpool} do job, quando há um.
+ */
+public class ImportJob implements ImportListener {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final long totalBytes;
+    private final Instant createdAt = Instant.now();
+    private final RejectedLineSpool rejections;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int queuePosition;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long linesRead;
+    private volatile long bytesRead;
+    private volatile long saved;
+    private volatile long invalid;
+    private volatile SaleImportService.ImportResult result;
+    private volatile String error;
+
+    public ImportJob(String fileName, long totalBytes) {
+        this(fileName, totalBytes, null);
+    }
+
+    public ImportJob(String fileName, long totalBytes, RejectedLineSpool rejections) {
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.rejections = rejections;
+    }
+
+    @Override
+    public void onProgress(long linesRead, long bytesRead, long saved, long invalid) {
+        this.linesRead = linesRead;
+        this.bytesRead = bytesRead;
+        this.saved = saved;
+        this.invalid = invalid;
+    }
+
+    @Override
+    public void onRejected(SaleImportService.ImportRejection rejection) {
+        if (rejections != null) {
+            rejections.append(rejection);
+        }
+    }
+
+    void queued(int position) {
+        queuePosition = position;
+    }
+
+    void started() {
+        queuePosition = 0;
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void completed(SaleImportService.ImportResult result) {
+        closeRejections();
+        this.result = result;
+        // Os contadores do andamento terminam iguais ao resultado, inclusive quando a
+        // importação devolve o resultado de um arquivo já importado, sem ler as linhas.
+        this.linesRead = result.totalLines();
+        this.saved = result.saved();
+        this.invalid = result.invalid();
+        if (totalBytes > 0) {
+            this.bytesRead = totalBytes;
+        }
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        closeRejections();
+        this.error = error;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    private void closeRejections() {
+        if (rejections != null) {
+            rejections.close();
+        }
+    }
+
+    /**
+     * Linhas rejeitadas até agora, ou null se o job não guarda rejeições.
+     */
+    public RejectedLineSpool getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Apaga as rejeições guardadas, quando o job sai da retenção.
+     */
+    void discard() {
+        if (rejections != null) {
+            rejections.delete();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.COMPLETED || current == Status.FAILED;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    // Taxas do job em andamento, para as métricas; 0 antes de começar e depois de terminar.
+    double linesPerSecond() {
+        return rate(linesRead);
+    }
+
+    double bytesPerSecond() {
+        return rate(bytesRead);
+    }
+
+    private double rate(long count) {
+        Instant start = startedAt;
+        if (start == null || isFinished()) {
+            return 0;
+        }
+        return count / (Math.max(Duration.between(start, Instant.now()).toMillis(), 1) / 1000.0);
+    }
+
+    public ImportJobStatus snapshot() {
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+
+        Double linesPerSecond = null;
+        Long etaSeconds = null;
+
+        if (start != null) {
+            double seconds = Math.max(Duration.between(start, end).toMillis(), 1) / 1000.0;
+            long lines = linesRead;
+            long bytes = bytesRead;
+            linesPerSecond = lines / seconds;
+
+            if (!isFinished() && bytes > 0 && totalBytes > 0) {
+                double bytesPerSecond = bytes / seconds;
+                etaSeconds = Math.round((totalBytes - bytes) / bytesPerSecond);
+            } else if (isFinished()) {
+                etaSeconds = 0L;
+            }
+        }
+
+        Status current = status;
+        int position = queuePosition;
+        return new ImportJobStatus(id, current, current == Status.QUEUED && position > 0 ? position : null,
+                fileName, createdAt, start, finishedAt,
+                linesRead, saved, invalid, bytesRead, totalBytes, linesPerSecond, etaSeconds, result, error);
+    }
+
+    public record ImportJobStatus(
+            String id,
+            Status status,
+            Integer queuePosition,
+            String fileName,
+            Instant createdAt,
+            Instant startedAt,
+            Instant finishedAt,
+            long linesRead,
+            long saved,
+            long invalid,
+            long bytesRead,
+            long totalBytes,
+            Double linesPerSecond,
+            Long etaSeconds,
+            SaleImportService.ImportResult result,
+            String error) {
+    }
+}
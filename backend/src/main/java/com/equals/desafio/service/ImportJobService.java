@@ -0,0 +1,298 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Executa importações em segundo plano, em virtual threads, e guarda o andamento
+ * de cada uma para consulta por id. Toda importação passa antes pelo {@link ImportScheduler},
+ * que limita quantas rodam juntas; as demais ficam QUEUED com a posição na fila. Jobs
+ * finalizados ficam disponíveis por app.import.job-retention, junto com as linhas rejeitadas,
+ * gravadas em app.import.errors-dir (padrão: diretório temporário); uma limpeza periódica
+ * descarta os vencidos e os arquivos deles. Publica as taxas somadas
+ * dos jobs em andamento como {@code sale.import.lines.rate} e {@code sale.import.bytes.rate}.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final Duration MAX_EVICTION_INTERVAL = Duration.ofMinutes(1);
+
+    private final SaleImportService importService;
+    private final SalePartitionService partitionService;
+    private final ImportScheduler scheduler;
+    private final Duration retention;
+    private final Path errorsDir;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService evictor;
+
+    public ImportJobService(SaleImportService importService, SalePartitionService partitionService,
+            ImportScheduler scheduler, ImportProperties properties, MeterRegistry registry,
+            ObjectMapper objectMapper) {
+        this.importService = importService;
+        this.partitionService = partitionService;
+        this.scheduler = scheduler;
+        this.retention = properties.getJobRetention();
+        this.errorsDir = properties.getErrorsDir() == null || properties.getErrorsDir().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "import-errors")
+                : Path.of(properties.getErrorsDir());
+        this.objectMapper = objectMapper;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("import-job-eviction").factory());
+        long interval = Math.max(Math.min(retention.toMillis(), MAX_EVICTION_INTERVAL.toMillis()), 1000);
+        evictor.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("sale.import.lines.rate", this, service -> service.runningRate(ImportJob::linesPerSecond))
+                .description("Linhas por segundo das importações em andamento")
+                .register(registry);
+        Gauge.builder("sale.import.bytes.rate", this, service -> service.runningRate(ImportJob::bytesPerSecond))
+                .description("Bytes por segundo das importações em andamento")
+                .register(registry);
+    }
+
+    public ImportJob submitUpload(MultipartFile file, ImportWriteMode writeMode) {
+
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Arquivo vazio ou não enviado.");
+        }
+
+        ImportJob job = new ImportJob(file.getOriginalFilename(), file.getSize(), newSpool());
+        ImportScheduler.Ticket ticket = scheduler.enqueueFile(job);
+
+        // O multipart é descartado ao fim da requisição; o job trabalha sobre uma cópia local.
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("import-", ".txt");
+            file.transferTo(temp);
+        } catch (IOException e) {
+            ticket.close();
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            throw new RuntimeException("Erro ao receber o arquivo: " + e.getMessage(), e);
+        }
+
+        return submit(job, ticket, temp, writeMode, true);
+    }
+
+    public ImportJob submitSpool(String fileName, ImportWriteMode writeMode) {
+        Path path = importService.resolveSpoolFile(fileName);
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler o arquivo do spool: " + e.getMessage(), e);
+        }
+
+        ImportJob job = new ImportJob(fileName, size, newSpool());
+        return submit(job, scheduler.enqueueFile(job), path, writeMode, false);
+    }
+
+    /**
+     * Importa o stream na thread chamadora, enquanto os bytes chegam, registrando o job
+     * para acompanhamento. {@code totalBytes} negativo indica tamanho desconhecido. Se a
+     * importação precisa esperar na fila, a requisição espera junto, sem ler o corpo.
+     */
+    public ImportJob importStream(InputStream body, boolean gzip, String fileName, long totalBytes,
+            ImportWriteMode writeMode) {
+
+        ImportJob job = new ImportJob(fileName, gzip ? -1 : totalBytes, newSpool());
+        ImportScheduler.Ticket ticket = scheduler.enqueueStream(job);
+        jobs.put(job.getId(), job);
+
+        try (ticket) {
+            ticket.await();
+            job.started();
+            try (InputStream in = gzip ? new GZIPInputStream(body, 64 * 1024) : body) {
+                job.completed(importService.importStream(in, writeMode, job));
+                partitionNewMonths();
+                return job;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed("Importação cancelada enquanto aguardava na fila.");
+            throw new IllegalStateException("Importação cancelada enquanto aguardava na fila.", e);
+        } catch (IOException e) {
+            throw unreadableBody(job, e, gzip);
+        } catch (UncheckedIOException e) {
+            throw unreadableBody(job, e.getCause(), gzip);
+        } catch (RuntimeException e) {
+            job.failed(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Corpo que não pôde ser lido até o fim: gzip com cabeçalho ou dados inválidos, gzip
+     * truncado ou corpo interrompido. Vira 400, com a mesma mensagem no job.
+     */
+    private static IllegalArgumentException unreadableBody(ImportJob job, IOException e, boolean gzip) {
+        String message;
+        if (e instanceof ZipException) {
+            message = "Conteúdo gzip inválido: " + e.getMessage();
+        } else if (e instanceof EOFException) {
+            message = (gzip ? "Conteúdo gzip truncado: " : "Corpo da requisição incompleto: ") + e.getMessage();
+        } else {
+            message = "Erro ao ler o corpo da requisição: " + e.getMessage();
+        }
+        job.failed(message);
+        return new IllegalArgumentException(message, e);
+    }
+
+    public Optional<ImportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Envia o andamento do job a cada {@value #PROGRESS_INTERVAL_MS} ms como eventos "progress"
+     * e encerra o stream quando o job termina.
+     */
+    public SseEmitter stream(ImportJob job) {
+        SseEmitter emitter = new SseEmitter(0L);
+
+        executor.submit(() -> {
+            try {
+                while (true) {
+                    boolean finished = job.isFinished();
+                    emitter.send(SseEmitter.event().name("progress").data(job.snapshot()));
+                    if (finished) {
+                        emitter.complete();
+                        return;
+                    }
+                    Thread.sleep(PROGRESS_INTERVAL_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+
+        return emitter;
+    }
+
+    private RejectedLineSpool newSpool() {
+        return new RejectedLineSpool(errorsDir, objectMapper);
+    }
+
+    private ImportJob submit(ImportJob job, ImportScheduler.Ticket ticket, Path path, ImportWriteMode writeMode,
+            boolean deleteAfter) {
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.submit(() -> run(job, ticket, path, writeMode, deleteAfter));
+        } catch (RuntimeException e) {
+            // Sem execução (aplicação encerrando): nada vai consumir o ticket nem o temporário.
+            jobs.remove(job.getId());
+            ticket.close();
+            if (deleteAfter) {
+                deleteQuietly(path);
+            }
+            job.failed(e.getMessage());
+            throw e;
+        }
+
+        return job;
+    }
+
+    private void run(ImportJob job, ImportScheduler.Ticket ticket, Path path, ImportWriteMode writeMode,
+            boolean deleteAfter) {
+        try (ticket) {
+            SaleImportService.ImportResult result;
+            try {
+                ticket.await();
+                job.started();
+                result = importService.importLocalFile(path, writeMode, job);
+            } finally {
+                // Antes de publicar o resultado: quem vê o job concluído não acha mais o temporário.
+                if (deleteAfter) {
+                    deleteQuietly(path);
+                }
+            }
+            job.completed(result);
+            partitionNewMonths();
+        } catch (InterruptedException e) {
+            job.failed("Importação cancelada enquanto aguardava na fila.");
+        } catch (Exception e) {
+            job.failed(e.getMessage());
+        }
+    }
+
+    /**
+     * Vendas de meses sem partição foram para sales_default; move-as para partições próprias.
+     * Uma falha aqui não afeta a importação, que já foi gravada: a próxima tentativa resolve,
+     * e as vendas continuam consultáveis na partição default até lá.
+     */
+    private void partitionNewMonths() {
+        try {
+            partitionService.ensurePartitions();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao criar partições depois da importação; vendas novas ficam em sales_default", e);
+        }
+    }
+
+    private double runningRate(ToDoubleFunction<ImportJob> rate) {
+        return jobs.values().stream().mapToDouble(rate).sum();
+    }
+
+    void evictExpired() {
+        Instant limit = Instant.now().minus(retention);
+        for (Iterator<ImportJob> it = jobs.values().iterator(); it.hasNext(); ) {
+            ImportJob job = it.next();
+            if (job.isFinished() && job.getFinishedAt().isBefore(limit)) {
+                it.remove();
+                job.discard();
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // arquivo temporário; o sistema operacional limpa depois
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        evictor.shutdownNow();
+        executor.shutdownNow();
+        jobs.values().forEach(ImportJob::discard);
+    }
+}
@@ -0,0 +1,20 @@
+package com.equals.desafio.service;
+
+/**
+ * Recebe o andamento de uma importação. Chamado pela thread que grava os lotes,
+ * depois de cada bloco consumido e de cada lote gravado, e a cada linha rejeitada.
+ */
+public interface ImportListener {
+
+    ImportListener NONE = (linesRead, bytesRead, saved, invalid) -> {
+    };
+
+    void onProgress(long linesRead, long bytesRead, long saved, long invalid);
+
+    /**
+     * Uma linha rejeitada, na ordem do arquivo. Recebe todas, não só as que vão em
+     * {@link SaleImportService.ImportResult#errors()}.
+     */
+    default void onRejected(SaleImportService.ImportRejection rejection) {
+    }
+}
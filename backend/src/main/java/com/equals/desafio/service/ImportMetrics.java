@@ -0,0 +1,86 @@
+package com.equals.desafio.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas do caminho de importação, expostas em /actuator/prometheus:
+ * <ul>
+ * <li>{@code sale.import.stage{stage=read|parse|validate|persist}}: tempo de cada etapa por importação
+ * (parse e validate somados entre os workers);</li>
+ * <li>{@code sale.import.lines} e {@code sale.import.bytes}: linhas e bytes processados;</li>
+ * <li>{@code sale.import.invalid{reason}}: linhas inválidas pelo campo que as invalidou;</li>
+ * <li>{@code sale.import.batch.size} e {@code sale.import.batch.flush}: tamanho e latência da
+ * gravação de cada lote, com histogramas.</li>
+ * </ul>
+ * As taxas em andamento (linhas/s e bytes/s) ficam no {@link ImportJobService}, que conhece os jobs.
+ */
+@Component
+public class ImportMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer read;
+    private final Timer parse;
+    private final Timer validate;
+    private final Timer persist;
+    private final Counter lines;
+    private final Counter bytes;
+    private final DistributionSummary batchSize;
+    private final Timer batchFlush;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.read = stage("read");
+        this.parse = stage("parse");
+        this.validate = stage("validate");
+        this.persist = stage("persist");
+        this.lines = Counter.builder("sale.import.lines")
+                .description("Linhas lidas pelas importações")
+                .register(registry);
+        this.bytes = Counter.builder("sale.import.bytes")
+                .description("Bytes lidos pelas importações")
+                .baseUnit("bytes")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("sale.import.batch.size")
+                .description("Vendas por lote gravado")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchFlush = Timer.builder("sale.import.batch.flush")
+                .description("Latência da gravação de um lote")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer stage(String stage) {
+        return Timer.builder("sale.import.stage")
+                .description("Tempo de cada etapa da importação")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    void block(long lineCount, long byteCount) {
+        lines.increment(lineCount);
+        bytes.increment(byteCount);
+    }
+
+    void invalid(String reason) {
+        registry.counter("sale.import.invalid", "reason", reason).increment();
+    }
+
+    void batch(int size, long nanos) {
+        batchSize.record(size);
+        batchFlush.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void stages(long readNanos, long parseNanos, long validateNanos, long persistNanos) {
+        read.record(readNanos, TimeUnit.NANOSECONDS);
+        parse.record(parseNanos, TimeUnit.NANOSECONDS);
+        validate.record(validateNanos, TimeUnit.NANOSECONDS);
+        persist.record(persistNanos, TimeUnit.NANOSECONDS);
+    }
+}
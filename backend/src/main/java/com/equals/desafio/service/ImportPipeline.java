@@ -0,0 +1,126 @@
+package com.equals.desafio.service;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pipeline de importação: uma thread leitora corta o arquivo em blocos de linhas
+ * ({@link LineBlockReader} para streams, {@link MappedFileBlockSource} para arquivos locais),
+ * um pool de workers processa os blocos e a thread chamadora consome os resultados
+ * na ordem do arquivo. A fila limitada entre leitor e consumidor segura o leitor
+ * quando a gravação fica para trás, então a memória fica em torno de
+ * queueCapacity blocos, independente do tamanho do arquivo.
+ * <p>
+ * O consumo acontece na thread chamadora para continuar dentro da transação dela.
+ * {@code run} devolve o tempo que o leitor passou lendo blocos (sem contar a espera na fila).
+ * <p>
+ * Os workers são um pool único, dividido entre as importações simultâneas, com threads que
+ * encerram depois de {@value #WORKER_KEEP_ALIVE_SECONDS} s sem trabalho; o leitor de cada
+ * importação é uma virtual thread.
+ */
+final class ImportPipeline<T> {
+
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 30;
+
+    private final int queueCapacity;
+    private final int blockSize;
+    private final ThreadPoolExecutor workers;
+    private final ThreadFactory readers = Thread.ofVirtual().name("import-reader-", 1).factory();
+
+    ImportPipeline(int parallelism, int queueCapacity, int blockSize) {
+        this.queueCapacity = queueCapacity;
+        this.blockSize = blockSize;
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("import-worker-"));
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    int blockSize() {
+        return blockSize;
+    }
+
+    long run(InputStream in, Function<ByteBuffer, T> worker, Consumer<T> consumer) throws Exception {
+        return run(new LineBlockReader(in, blockSize), worker, consumer);
+    }
+
+    long run(BlockSource blocks, Function<ByteBuffer, T> worker, Consumer<T> consumer) throws Exception {
+        BlockingQueue<Future<T>> pending = new ArrayBlockingQueue<>(queueCapacity);
+        CompletableFuture<T> end = new CompletableFuture<>();
+        // Escrito só pelo leitor, antes de completar end; lido depois de end.
+        long[] readNanos = new long[1];
+
+        Thread reader = readers.newThread(() -> {
+            try {
+                while (true) {
+                    long start = System.nanoTime();
+                    ByteBuffer block = blocks.next();
+                    readNanos[0] += System.nanoTime() - start;
+                    if (block == null) {
+                        break;
+                    }
+                    pending.put(workers.submit(() -> worker.apply(block)));
+                }
+                end.complete(null);
+                pending.put(end);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                end.completeExceptionally(e);
+                try {
+                    pending.put(end);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        reader.start();
+        try {
+            while (true) {
+                Future<T> next = pending.take();
+                T result = await(next);
+                if (next == end) {
+                    return readNanos[0];
+                }
+                consumer.accept(result);
+            }
+        } finally {
+            // Sem esperar o leitor, que pode estar bloqueado lendo a rede: no máximo o bloco
+            // que ele já entregou aos workers ainda é processado, e descartado.
+            reader.interrupt();
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.equals.desafio.service;
+
+/**
+ * Importação recusada na entrada porque a fila do {@link ImportScheduler} está cheia.
+ */
+public class ImportRejectedException extends RuntimeException {
+
+    public ImportRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,213 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão das importações: no máximo app.import.max-concurrent rodando ao mesmo
+ * tempo e, somadas, dentro de app.import.memory-budget (padrão: 1/4 do heap). As demais esperam
+ * numa fila FIFO de até app.import.max-queued, com a posição publicada no job; além disso a
+ * importação é recusada com {@link ImportRejectedException}.
+ * <p>
+ * A memória de uma importação é estimada pelas vendas em voo: os blocos na fila do pipeline e
+ * nos workers, mais o lote com o contexto de persistência; importações por stream somam os
+ * próprios blocos, que ficam no heap (arquivos locais são mapeados). Uma importação maior que
+ * o orçamento inteiro roda sozinha, para não ficar presa na fila.
+ * <p>
+ * Cada importação admitida segura uma conexão do pool, então o limite de concorrência também
+ * separa as conexões das importações das usadas pelas consultas: o pool precisa ser maior que
+ * app.import.max-concurrent.
+ */
+@Component
+public class ImportScheduler {
+
+    // Bytes por linha de detalhe, com terminador.
+    private static final int LINE_BYTES = 531;
+    // Venda parseada (Sale, Strings, BigDecimals, datas) esperando no resultado de um bloco.
+    private static final long SALE_BYTES = 512;
+    // Venda do lote: entidade gerenciada mais o snapshot do contexto de persistência.
+    private static final long PERSISTED_SALE_BYTES = 1536;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long memoryBudget;
+    private final long fileCost;
+    private final long streamCost;
+
+    private int running;
+    private long reserved;
+
+    public ImportScheduler(ImportProperties properties, DataSource dataSource, MeterRegistry registry) {
+        if (properties.getMaxConcurrent() <= 0 || properties.getMaxQueued() < 0) {
+            throw new IllegalArgumentException("app.import.max-concurrent deve ser maior que zero e "
+                    + "app.import.max-queued não pode ser negativo.");
+        }
+        HikariDataSource hikari = hikari(dataSource);
+        if (hikari != null && properties.getMaxConcurrent() >= hikari.getMaximumPoolSize()) {
+            throw new IllegalArgumentException("app.import.max-concurrent (" + properties.getMaxConcurrent()
+                    + ") deve ser menor que spring.datasource.hikari.maximum-pool-size ("
+                    + hikari.getMaximumPoolSize() + "), para sobrarem conexões às consultas.");
+        }
+
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.maxQueued = properties.getMaxQueued();
+        this.memoryBudget = properties.getMemoryBudget() != null
+                ? properties.getMemoryBudget().toBytes()
+                : Runtime.getRuntime().maxMemory() / 4;
+
+        long blocksInFlight = (long) properties.getQueueCapacity() + properties.getParallelism();
+        this.fileCost = blocksInFlight * (properties.getBlockSize() / LINE_BYTES + 1) * SALE_BYTES
+                + properties.getBatchSize() * PERSISTED_SALE_BYTES;
+        this.streamCost = fileCost + blocksInFlight * properties.getBlockSize();
+
+        Gauge.builder("sale.import.queued", this, scheduler -> scheduler.locked(() -> scheduler.waiting.size()))
+                .description("Importações esperando na fila de admissão")
+                .register(registry);
+        Gauge.builder("sale.import.running", this, scheduler -> scheduler.locked(() -> scheduler.running))
+                .description("Importações admitidas e em andamento")
+                .register(registry);
+        Gauge.builder("sale.import.memory.reserved", this, scheduler -> scheduler.locked(() -> scheduler.reserved))
+                .description("Memória estimada reservada pelas importações em andamento")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Entra na fila para importar um arquivo local (mapeado em memória).
+     *
+     * @throws ImportRejectedException se a fila está cheia
+     */
+    public Ticket enqueueFile(ImportJob job) {
+        return enqueue(job, fileCost);
+    }
+
+    /**
+     * Entra na fila para importar um stream, cujos blocos ficam no heap.
+     *
+     * @throws ImportRejectedException se a fila está cheia
+     */
+    public Ticket enqueueStream(ImportJob job) {
+        return enqueue(job, streamCost);
+    }
+
+    long fileCost() {
+        return fileCost;
+    }
+
+    private Ticket enqueue(ImportJob job, long cost) {
+        lock.lock();
+        try {
+            if (waiting.size() >= maxQueued && !(waiting.isEmpty() && admissible(cost))) {
+                throw new ImportRejectedException("Fila de importações cheia (" + waiting.size()
+                        + " aguardando). Tente novamente mais tarde.");
+            }
+            Ticket ticket = new Ticket(job, cost);
+            waiting.addLast(ticket);
+            publishPositions();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admissible(long cost) {
+        return running < maxConcurrent && (running == 0 || reserved + cost <= memoryBudget);
+    }
+
+    private void publishPositions() {
+        int position = 1;
+        for (Ticket ticket : waiting) {
+            ticket.job.queued(position++);
+        }
+    }
+
+    // O pool do primário, também atrás do roteamento de leituras (app.read-routing).
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private double locked(Supplier<? extends Number> value) {
+        lock.lock();
+        try {
+            return value.get().doubleValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lugar de uma importação na fila. {@link #await()} bloqueia até a vez dela; {@link #close()}
+     * libera a vaga (ou sai da fila, se ainda não foi admitida).
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final ImportJob job;
+        private final long cost;
+        private boolean admitted;
+        private boolean closed;
+
+        private Ticket(ImportJob job, long cost) {
+            this.job = job;
+            this.cost = cost;
+        }
+
+        public void await() throws InterruptedException {
+            lock.lock();
+            try {
+                while (waiting.peekFirst() != this || !admissible(cost)) {
+                    changed.await();
+                }
+                waiting.removeFirst();
+                running++;
+                reserved += cost;
+                admitted = true;
+                publishPositions();
+                // O próximo da fila pode caber também.
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (admitted) {
+                    running--;
+                    reserved -= cost;
+                } else if (waiting.remove(this)) {
+                    publishPositions();
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.equals.desafio.service;
+
+import java.util.Locale;
+
+public enum ImportWriteMode {
+    JPA,
+    COPY;
+
+    public static ImportWriteMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("writer inválido: " + value + ". Use jpa ou copy.");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.equals.desafio.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lê o arquivo em blocos de bytes que sempre terminam em fim de linha,
+ * para que cada bloco possa ser processado de forma independente.
+ */
+final class LineBlockReader implements BlockSource {
+
+    private final InputStream in;
+    private final int blockSize;
+
+    private byte[] carry = new byte[0];
+    private int carryLength;
+    private boolean eof;
+
+    LineBlockReader(InputStream in, int blockSize) {
+        this.in = in;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public ByteBuffer next() throws IOException {
+        if (eof && carryLength == 0) {
+            return null;
+        }
+
+        byte[] buf = new byte[Math.max(blockSize, carryLength * 2)];
+        System.arraycopy(carry, 0, buf, 0, carryLength);
+        int length = carryLength;
+        carryLength = 0;
+
+        while (true) {
+            while (!eof && length < buf.length) {
+                int n = in.read(buf, length, buf.length - length);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    length += n;
+                }
+            }
+
+            if (eof) {
+                return length == 0 ? null : ByteBuffer.wrap(buf, 0, length);
+            }
+
+            int cut = lastLineEnd(buf, length);
+            if (cut > 0) {
+                keepCarry(buf, cut, length);
+                return ByteBuffer.wrap(buf, 0, cut);
+            }
+
+            // Linha maior que o bloco: cresce o buffer até achar o fim dela.
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+    }
+
+    /**
+     * Posição logo após o último terminador de linha do buffer. Um '\r' no último byte
+     * não conta, porque o '\n' de um "\r\n" pode estar no próximo bloco.
+     */
+    private static int lastLineEnd(byte[] buf, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buf[i] == '\n' || (buf[i] == '\r' && i < length - 1)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void keepCarry(byte[] buf, int from, int to) {
+        carryLength = to - from;
+        if (carry.length < carryLength) {
+            carry = new byte[Math.max(carryLength, blockSize)];
+        }
+        System.arraycopy(buf, from, carry, 0, carryLength);
+    }
+}
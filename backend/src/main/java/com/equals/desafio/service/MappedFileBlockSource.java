@@ -0,0 +1,122 @@
+package com.equals.desafio.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lê um arquivo local via {@link FileChannel#map} e entrega fatias alinhadas em fim de linha,
+ * sem copiar os bytes para o heap. O arquivo é mapeado em janelas de até {@code windowSize}
+ * bytes, então arquivos maiores que 2 GB também funcionam. A leitura pode começar num
+ * offset (início de linha), para retomar uma importação interrompida.
+ */
+final class MappedFileBlockSource implements BlockSource, Closeable {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int blockSize;
+    private final int windowSize;
+    private final long startOffset;
+
+    private MappedByteBuffer window;
+    private long windowOffset;
+    private int position;
+
+    MappedFileBlockSource(Path path, int blockSize, int windowSize) throws IOException {
+        this(path, blockSize, windowSize, 0);
+    }
+
+    MappedFileBlockSource(Path path, int blockSize, int windowSize, long startOffset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.blockSize = blockSize;
+        this.windowSize = windowSize;
+        this.startOffset = startOffset;
+    }
+
+    @Override
+    public ByteBuffer next() throws IOException {
+        while (true) {
+            if (window == null || position >= window.limit()) {
+                long start = window == null ? startOffset : windowOffset + position;
+                if (start >= size) {
+                    return null;
+                }
+                map(start);
+            }
+
+            boolean lastWindow = windowOffset + window.limit() == size;
+            int nominal = position + blockSize;
+            int cut = nominal < window.limit() ? lineEndFrom(window, nominal) : -1;
+
+            if (cut < 0 && lastWindow) {
+                cut = window.limit();
+            }
+            if (cut < 0 && position > 0) {
+                // Bloco cruza o fim da janela: remapeia a partir da posição atual.
+                map(windowOffset + position);
+                continue;
+            }
+            if (cut < 0) {
+                cut = lastLineEnd(window);
+                if (cut <= 0) {
+                    throw new IOException("Linha maior que a janela de mapeamento de " + windowSize + " bytes.");
+                }
+            }
+
+            ByteBuffer block = window.slice(position, cut - position);
+            position = cut;
+            return block;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        long length = Math.min(size - start, windowSize);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        windowOffset = start;
+        position = 0;
+    }
+
+    /**
+     * Posição logo após o primeiro terminador de linha a partir de {@code from},
+     * ou -1 se o fim de linha não estiver inteiro dentro da janela.
+     */
+    private static int lineEndFrom(ByteBuffer buf, int from) {
+        int limit = buf.limit();
+        for (int i = from; i < limit; i++) {
+            byte b = buf.get(i);
+            if (b == '\n') {
+                return i + 1;
+            }
+            if (b == '\r') {
+                if (i + 1 >= limit) {
+                    return -1;
+                }
+                return buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastLineEnd(ByteBuffer buf) {
+        int limit = buf.limit();
+        for (int i = limit - 1; i >= 0; i--) {
+            byte b = buf.get(i);
+            if (b == '\n' || (b == '\r' && i < limit - 1)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
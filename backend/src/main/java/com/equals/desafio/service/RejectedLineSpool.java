@@ -0,0 +1,246 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.service.SaleImportService.ImportRejection;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Todas as linhas rejeitadas de uma importação, gravadas à medida que ela anda num arquivo
+ * NDJSON só de acréscimo (um {@link ImportRejection} por linha), com memória constante. O
+ * arquivo só é criado na primeira rejeição. Os totais por motivo são contados na gravação.
+ * <p>
+ * Só a thread da importação grava; as leituras veem tudo o que foi gravado até a chamada.
+ */
+public class RejectedLineSpool {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final Map<String, Long> reasons = new ConcurrentHashMap<>();
+
+    private Path file;
+    private OutputStream out;
+    // Bytes gravados (e, depois de flush, legíveis) no arquivo.
+    private long length;
+    private volatile long total;
+    private boolean closed;
+
+    public RejectedLineSpool(Path dir, ObjectMapper objectMapper) {
+        this.dir = dir;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    public synchronized void append(ImportRejection rejection) {
+        if (closed) {
+            throw new IllegalStateException("Spool de linhas rejeitadas já fechado.");
+        }
+        try {
+            if (out == null) {
+                Files.createDirectories(dir);
+                file = Files.createTempFile(dir, "import-errors-", ".ndjson");
+                out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND), BUFFER_SIZE);
+            }
+            byte[] json = writer.writeValueAsBytes(rejection);
+            out.write(json);
+            out.write('\n');
+            length += json.length + 1;
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gravar linha rejeitada: " + e.getMessage(), e);
+        }
+        reasons.merge(rejection.reason(), 1L, Long::sum);
+        total++;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Quantidade de linhas rejeitadas por motivo (campo que as invalidou).
+     */
+    public Map<String, Long> reasons() {
+        return new TreeMap<>(reasons);
+    }
+
+    /**
+     * Uma página das rejeições, na ordem do arquivo. A primeira chamada vai sem {@code cursor};
+     * as seguintes repassam o {@code nextCursor} anterior. Com a importação em andamento, um
+     * {@code nextCursor} nulo só quer dizer que não há mais nada gravado por enquanto.
+     */
+    public RejectionPage page(String cursor, Integer size) {
+
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        long offset = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : 0;
+
+        Path path;
+        long limit;
+        synchronized (this) {
+            flush();
+            path = file;
+            limit = length;
+        }
+        if (offset > limit) {
+            throw new IllegalArgumentException("cursor inválido.");
+        }
+        if (path == null || offset == limit) {
+            return new RejectionPage(List.of(), null, total, reasons());
+        }
+
+        List<ImportRejection> items = new ArrayList<>(Math.min(pageSize, 64));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Cursores só apontam para início de registro.
+            if (offset > 0 && !followsNewline(channel, offset)) {
+                throw new IllegalArgumentException("cursor inválido.");
+            }
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(offset)), BUFFER_SIZE);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+            while (items.size() < pageSize && offset < limit) {
+                line.reset();
+                int b;
+                while ((b = in.read()) != '\n') {
+                    if (b < 0) {
+                        throw new IOException("registro incompleto no offset " + offset);
+                    }
+                    line.write(b);
+                }
+                offset += line.size() + 1;
+                items.add(objectMapper.readValue(line.toByteArray(), ImportRejection.class));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler linhas rejeitadas: " + e.getMessage(), e);
+        }
+
+        return new RejectionPage(items, offset < limit ? encodeCursor(offset) : null, total, reasons());
+    }
+
+    /**
+     * Escreve as rejeições gravadas até agora, como estão no arquivo (NDJSON).
+     */
+    public void export(OutputStream target) throws IOException {
+        Path path;
+        long limit;
+        synchronized (this) {
+            flush();
+            path = file;
+            limit = length;
+        }
+        if (path == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel sink = Channels.newChannel(target);
+            long position = 0;
+            while (position < limit) {
+                position += channel.transferTo(position, limit - position, sink);
+            }
+        }
+    }
+
+    /**
+     * Fim da importação: grava o que falta e fecha o arquivo, que continua legível.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // o que já chegou ao arquivo continua legível
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    /**
+     * Fecha e apaga o arquivo, quando o job sai da retenção.
+     */
+    public synchronized void delete() {
+        close();
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // arquivo temporário; o sistema operacional limpa depois
+            }
+        }
+    }
+
+    private void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gravar linha rejeitada: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean followsNewline(FileChannel channel, long offset) throws IOException {
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        return channel.read(previous, offset - 1) == 1 && previous.get(0) == '\n';
+    }
+
+    // Offset em bytes no arquivo, trafegado como texto opaco (Base64), como o cursor de /sales.
+    private static String encodeCursor(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String value) {
+        try {
+            long offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII));
+            if (offset < 0) {
+                throw new IllegalArgumentException();
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor inválido.");
+        }
+    }
+
+    /**
+     * Página de rejeições com {@code total} e {@code reasons} de tudo o que já foi gravado.
+     */
+    public record RejectionPage(List<ImportRejection> items, String nextCursor, long total,
+            Map<String, Long> reasons) {
+    }
+}
@@ -1,104 +1,456 @@
 package com.equals.desafio.service;
 
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.domain.ImportCheckpoint;
+import com.equals.desafio.domain.ImportedFile;
 import com.equals.desafio.domain.Sale;
 import com.equals.desafio.parser.SaleLayout;
 import com.equals.desafio.parser.SaleParser;
+import com.equals.desafio.parser.SaleRecord;
+import com.equals.desafio.repository.ImportCheckpointRepository;
+import com.equals.desafio.repository.ImportedFileRepository;
+import com.equals.desafio.repository.SaleCopyWriter;
 import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleRollupWriter;
+import com.equals.desafio.repository.SaleTotalsSink;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class SaleImportService {
 
     private static final int MAX_ERRORS_RETURNED = 10;
 
+    // Cada trecho confirmado de uma importação de arquivo local é uma transação própria,
+    // mesmo que a chamada venha de dentro de outra.
+    private static final TransactionDefinition CHECKPOINT_TRANSACTION =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
     private final SaleParser saleParser;
     private final SaleRepository saleRepository;
-
-    public SaleImportService(SaleParser saleParser, SaleRepository saleRepository) {
+    private final SaleCopyWriter saleCopyWriter;
+    private final ImportedFileRepository importedFileRepository;
+    private final SaleRollupWriter saleRollupWriter;
+    private final SaleQueryCache saleQueryCache;
+    private final SaleTotalsIndex saleTotalsIndex;
+    private final ImportMetrics importMetrics;
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final int batchSize;
+    private final ImportWriteMode defaultWriteMode;
+    private final ImportPipeline<BlockResult> pipeline;
+    private final Path spoolDir;
+    private final ConcurrentHashMap<String, HashLock> importing = new ConcurrentHashMap<>();
+
+    public SaleImportService(SaleParser saleParser, SaleRepository saleRepository,
+            SaleCopyWriter saleCopyWriter, ImportedFileRepository importedFileRepository,
+            SaleRollupWriter saleRollupWriter, SaleQueryCache saleQueryCache, SaleTotalsIndex saleTotalsIndex,
+            ImportMetrics importMetrics, ImportCheckpointRepository importCheckpointRepository,
+            PlatformTransactionManager transactionManager, ImportProperties properties) {
+        if (properties.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("app.import.batch-size deve ser maior que zero.");
+        }
+        if (properties.getParallelism() <= 0) {
+            throw new IllegalArgumentException("app.import.parallelism deve ser maior que zero.");
+        }
+        if (properties.getQueueCapacity() <= 0 || properties.getBlockSize() <= 0) {
+            throw new IllegalArgumentException("app.import.queue-capacity e app.import.block-size devem ser maiores que zero.");
+        }
         this.saleParser = saleParser;
         this.saleRepository = saleRepository;
+        this.saleCopyWriter = saleCopyWriter;
+        this.importedFileRepository = importedFileRepository;
+        this.saleRollupWriter = saleRollupWriter;
+        this.saleQueryCache = saleQueryCache;
+        this.saleTotalsIndex = saleTotalsIndex;
+        this.importMetrics = importMetrics;
+        this.importCheckpointRepository = importCheckpointRepository;
+        this.transactionManager = transactionManager;
+        this.batchSize = properties.getBatchSize();
+        this.defaultWriteMode = properties.getWriteMode();
+        this.pipeline = new ImportPipeline<>(
+                properties.getParallelism(), properties.getQueueCapacity(), properties.getBlockSize());
+        this.spoolDir = properties.getSpoolDir() == null || properties.getSpoolDir().isBlank()
+                ? null
+                : Path.of(properties.getSpoolDir()).toAbsolutePath().normalize();
     }
 
-    public ImportResult importFile(MultipartFile file) {
+    /**
+     * Grava uma venda avulsa, mantendo o rollup diário junto.
+     */
+    @Transactional
+    public Sale saveSale(Sale sale) {
+        if (sale.getTransactionCode() != null
+                && !saleRepository.reserveTransactionCodes(List.of(sale.getTransactionCode())).isEmpty()) {
+            throw new IllegalArgumentException("transactionCode já cadastrado: " + sale.getTransactionCode());
+        }
+        Sale saved = saleRepository.saveAndFlush(sale);
+        saleRollupWriter.addSales(List.of(saved));
+        saleQueryCache.invalidateAfterCommit(saved.getEventDate(), saved.getEventDate());
+        if (saleTotalsIndex.isEnabled()) {
+            SaleTotalsIndex.Delta delta = new SaleTotalsIndex.Delta();
+            delta.add(saved);
+            saleTotalsIndex.addAfterCommit(delta);
+        }
+        return saved;
+    }
 
-        if (file == null || file.isEmpty()) {
+    /**
+     * Importa direto de um stream (ex.: corpo da requisição), processando os blocos
+     * à medida que os bytes chegam, sem gravar o arquivo antes. O hash do conteúdo só
+     * é conhecido no fim, então um arquivo repetido é processado de novo, mas todas as
+     * linhas caem como duplicadas. Pelo mesmo motivo não há checkpoint: tudo é gravado
+     * numa transação só, e uma falha desfaz a importação inteira. Para retomar do ponto
+     * da falha, use {@link #importLocalFile}.
+     *
+     * @throws UncheckedIOException se o stream não pôde ser lido até o fim (ex.: corpo gzip
+     *                              truncado ou corrompido), com o {@link IOException} de causa
+     */
+    @Transactional
+    public ImportResult importStream(InputStream in, ImportWriteMode writeMode, ImportListener listener) {
+
+        ImportRun run = new ImportRun(writeMode != null ? writeMode : defaultWriteMode, listener, null);
+        DigestInputStream digestIn = new DigestInputStream(in, ContentHash.newDigest());
+
+        try {
+            run.finish(pipeline.run(digestIn, this::parseBlock, run::accept));
+            run.publishWrites();
+        } catch (IOException e) {
+            throw unreadable(e);
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao ler/importar o arquivo: " + e.getMessage(), e);
+        }
+
+        if (run.isEmpty()) {
             throw new IllegalArgumentException("Arquivo vazio ou não enviado.");
         }
 
-        int totalLines = 0;
-        int detailLines = 0;
-        int ignored = 0;
-        int invalid = 0;
+        String contentHash = ContentHash.hex(digestIn.getMessageDigest());
+        return register(contentHash, run.bytesRead, run.result());
+    }
 
-        List<Sale> toSave = new ArrayList<>();
-        List<ImportError> errors = new ArrayList<>();
+    /**
+     * Arquivo do diretório de spool do servidor (ex.: entregue via SFTP), para o
+     * {@link #importLocalFile}. Recusa nomes que saem do diretório.
+     */
+    public Path resolveSpoolFile(String fileName) {
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+        if (spoolDir == null) {
+            throw new IllegalArgumentException("Diretório de spool não configurado (app.import.spool-dir).");
+        }
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Nome do arquivo não informado.");
+        }
 
-            String line;
-            int lineNumber = 0;
+        Path path = spoolDir.resolve(fileName).normalize();
+        if (!path.startsWith(spoolDir) || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Arquivo não encontrado no spool: " + fileName);
+        }
+        return path;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                totalLines++;
+    /**
+     * Importa um arquivo local (uploads multipart, copiados antes para um arquivo
+     * temporário, e arquivos do spool). O arquivo é mapeado em memória e dividido em blocos
+     * alinhados por linha, processados em paralelo.
+     * <p>
+     * A gravação é confirmada em trechos: a cada batchSize vendas, no fim do bloco corrente,
+     * o lote pendente e um {@link ImportCheckpoint} (offset, linha e contadores) são gravados
+     * e a transação é confirmada. Se a importação falhar, só o trecho em andamento é desfeito;
+     * uma nova tentativa com o mesmo conteúdo continua do último checkpoint, sem reler o que
+     * já foi gravado. Os erros listados no resultado são só os da última tentativa.
+     * <p>
+     * Importações simultâneas do mesmo conteúdo nesta instância rodam uma de cada vez: a
+     * segunda espera a primeira e devolve o resultado dela, sem reler as linhas.
+     */
+    public ImportResult importLocalFile(Path path, ImportWriteMode writeMode, ImportListener listener) {
+
+        String contentHash;
+        long size;
+        try {
+            contentHash = ContentHash.of(path);
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler/importar o arquivo: " + e.getMessage(), e);
+        }
 
-                if (line.trim().isEmpty()) {
-                    ignored++;
-                    continue;
-                }
+        HashLock lock = lock(contentHash);
+        try {
+            return importLocalFile(path, contentHash, size, writeMode, listener);
+        } finally {
+            unlock(contentHash, lock);
+        }
+    }
 
-                char recordType = line.charAt(0);
-                if (recordType != '1') {
-                    ignored++;
-                    continue;
-                }
+    private ImportResult importLocalFile(Path path, String contentHash, long size, ImportWriteMode writeMode,
+            ImportListener listener) {
+        ImportResult previous = findImported(contentHash);
+        if (previous != null) {
+            return previous;
+        }
 
-                detailLines++;
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(contentHash)
+                .orElseGet(() -> newCheckpoint(contentHash, size));
+        ImportRun run = new ImportRun(writeMode != null ? writeMode : defaultWriteMode, listener, checkpoint);
+
+        run.begin();
+        try (MappedFileBlockSource blocks = new MappedFileBlockSource(path, pipeline.blockSize(),
+                MappedFileBlockSource.DEFAULT_WINDOW_SIZE, checkpoint.getByteOffset())) {
+            run.finish(pipeline.run(blocks, this::parseBlock, run::accept));
+            run.publishWrites();
+            ImportResult result = register(contentHash, size, run.result());
+            run.complete();
+            return result;
+        } catch (Exception e) {
+            run.abort(e);
+            throw new RuntimeException("Erro ao ler/importar o arquivo: " + e.getMessage(), e);
+        }
+    }
 
-                try {
-                    String normalized = padRight(line, SaleLayout.DETAIL_MIN_LENGTH);
+    private HashLock lock(String contentHash) {
+        HashLock lock = importing.compute(contentHash, (hash, current) -> {
+            HashLock held = current != null ? current : new HashLock();
+            held.users++;
+            return held;
+        });
+        lock.lock.lock();
+        return lock;
+    }
 
-                    Sale sale = saleParser.parse(normalized);
-                    validateSale(sale);
-                    toSave.add(sale);
-                } catch (Exception e) {
-                    invalid++;
-                    addError(errors, lineNumber, e.getMessage());
-                }
+    private void unlock(String contentHash, HashLock lock) {
+        lock.lock.unlock();
+        importing.computeIfPresent(contentHash, (hash, current) -> --current.users == 0 ? null : current);
+    }
+
+    // Trava de um conteúdo em importação; sai do mapa quando ninguém mais a usa.
+    private static final class HashLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Só alterado dentro de compute/computeIfPresent do mapa.
+        private int users;
+    }
+
+    // Falha de leitura da entrada, vinda do leitor do pipeline: fica separada das falhas de
+    // gravação para quem chamou distinguir um corpo inválido de um erro do servidor.
+    private static UncheckedIOException unreadable(IOException e) {
+        return new UncheckedIOException("Erro ao ler o arquivo: " + e.getMessage(), e);
+    }
+
+    private static ImportCheckpoint newCheckpoint(String contentHash, long size) {
+        ImportCheckpoint checkpoint = new ImportCheckpoint();
+        checkpoint.setContentHash(contentHash);
+        checkpoint.setSizeBytes(size);
+        return checkpoint;
+    }
+
+    /**
+     * Se o mesmo conteúdo já foi importado, devolve o resultado sem ler as linhas de novo:
+     * nada é salvo e todas as vendas aceitas antes contam como duplicadas.
+     */
+    private ImportResult findImported(String contentHash) {
+        return importedFileRepository.findById(contentHash)
+                .map(file -> new ImportResult(
+                        file.getTotalLines(),
+                        file.getDetailLines(),
+                        0,
+                        file.getIgnored(),
+                        file.getInvalid(),
+                        file.getSaved() + file.getDuplicates(),
+                        List.of()))
+                .orElse(null);
+    }
+
+    private ImportResult register(String contentHash, long sizeBytes, ImportResult result) {
+        ImportedFile file = new ImportedFile();
+        file.setContentHash(contentHash);
+        file.setSizeBytes(sizeBytes);
+        file.setImportedAt(Instant.now());
+        file.setTotalLines(result.totalLines());
+        file.setDetailLines(result.detailLines());
+        file.setSaved(result.saved());
+        file.setIgnored(result.ignored());
+        file.setInvalid(result.invalid());
+        file.setDuplicates(result.duplicates());
+        // Outra importação do mesmo conteúdo pode ter registrado antes (por stream, ou em outra
+        // instância); as vendas dela já contaram como duplicadas aqui e o registro fica o dela.
+        importedFileRepository.insertIfAbsent(file);
+        return result;
+    }
+
+    /**
+     * Processa um bloco de linhas completas. Roda nos workers do pipeline, então só
+     * usa o parser e a validação, que não guardam estado. Os números de linha do
+     * resultado são relativos ao início do bloco.
+     */
+    BlockResult parseBlock(ByteBuffer block) {
+        BlockResult result = new BlockResult();
+        result.bytes = block.remaining();
+        ByteBuffer line = block.duplicate();
+        SaleRecord record = new SaleRecord();
+
+        int position = block.position();
+        int limit = block.limit();
+
+        while (position < limit) {
+            int end = position;
+            while (end < limit && block.get(end) != '\n' && block.get(end) != '\r') {
+                end++;
             }
 
-            saleRepository.saveAll(toSave);
+            result.lines++;
+            line.limit(end).position(position);
+            parseLine(line, record, result);
 
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao ler/importar o arquivo: " + e.getMessage(), e);
+            if (end < limit && block.get(end) == '\r' && end + 1 < limit && block.get(end + 1) == '\n') {
+                end++;
+            }
+            position = end + 1;
         }
 
-        return new ImportResult(totalLines, detailLines, toSave.size(), ignored, invalid, errors);
+        return result;
     }
 
-    private void addError(List<ImportError> errors, int lineNumber, String reason) {
+    private void parseLine(ByteBuffer line, SaleRecord record, BlockResult result) {
+        if (isBlank(line)) {
+            result.ignored++;
+            return;
+        }
 
-        if (errors.size() >= MAX_ERRORS_RETURNED) {
+        byte recordType = line.get(line.position());
+        if (recordType != '1') {
+            result.ignored++;
             return;
         }
 
-        String safeReason = (reason == null || reason.isBlank())
-                ? "Erro desconhecido."
-                : reason;
+        result.detailLines++;
+
+        long start = System.nanoTime();
+        long parsed = 0;
+        try {
+            Sale sale = saleParser.parse(record.wrap(line));
+            parsed = System.nanoTime();
+            validateSale(sale);
+            result.sales.add(sale);
+        } catch (Exception e) {
+            String reason = invalidReason(e);
+            result.invalid++;
+            result.rejections.add(new ImportRejection(result.lines, reason, safeMessage(e.getMessage()),
+                    record.line()));
+            importMetrics.invalid(reason);
+        }
+        long end = System.nanoTime();
+        if (parsed == 0) {
+            result.parseNanos += end - start;
+        } else {
+            result.parseNanos += parsed - start;
+            result.validateNanos += end - parsed;
+        }
+    }
+
+    /**
+     * Campo que invalidou a linha, para agrupar as rejeições sem o texto de cada erro:
+     * o nome do campo que abre as mensagens de {@link #validateSale}, ou a data/hora que
+     * não passou no parse.
+     */
+    static String invalidReason(Exception e) {
+        if (e instanceof DateTimeParseException parse) {
+            return parse.getParsedString().length() == SaleLayout.EVENT_DATE.length() ? "eventDate" : "eventTime";
+        }
+        String message = e.getMessage();
+        if (message != null) {
+            String field = message.split(" ", 2)[0];
+            switch (field) {
+                case "establishmentCode", "eventDate", "totalAmount", "transactionCode", "netAmount" -> {
+                    return field;
+                }
+                default -> {
+                }
+            }
+        }
+        return "other";
+    }
+
+    // Mesmo critério de String.trim().isEmpty(): só bytes <= ' '.
+    private static boolean isBlank(ByteBuffer line) {
+        for (int i = line.position(); i < line.limit(); i++) {
+            int b = line.get(i) & 0xFF;
+            if (b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        errors.add(new ImportError(lineNumber, safeReason));
+    /**
+     * Grava o lote e devolve quantas vendas foram inseridas. Transaction codes que já
+     * estão no banco (de importações anteriores ou de lotes anteriores desta) são
+     * descartados ao registrá-los em sale_transaction_codes, com um único comando por lote.
+     * As vendas inseridas entram no rollup diário na mesma transação e em {@code totals}.
+     */
+    private int flushBatch(List<Sale> batch, ImportWriteMode mode, SaleTotalsSink totals) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        if (mode == ImportWriteMode.COPY) {
+            return saleCopyWriter.copy(batch, totals);
+        }
+
+        List<String> codes = new ArrayList<>(batch.size());
+        for (Sale sale : batch) {
+            codes.add(sale.getTransactionCode());
+        }
+        Set<String> existing = saleRepository.reserveTransactionCodes(codes);
+
+        List<Sale> fresh = batch;
+        if (!existing.isEmpty()) {
+            fresh = new ArrayList<>(batch.size());
+            for (Sale sale : batch) {
+                if (!existing.contains(sale.getTransactionCode())) {
+                    fresh.add(sale);
+                }
+            }
+        }
+
+        if (!fresh.isEmpty()) {
+            saleRepository.saveAll(fresh);
+        }
+        saleRepository.flushAndClear();
+        saleRollupWriter.addSales(fresh);
+        for (Sale sale : fresh) {
+            totals.add(sale);
+        }
+        return fresh.size();
+    }
+
+    private static String safeMessage(String message) {
+        return (message == null || message.isBlank())
+                ? "Erro desconhecido."
+                : message;
     }
 
-    private void validateSale(Sale sale) {
+    static void validateSale(Sale sale) {
         if (sale == null) {
             throw new IllegalArgumentException("Venda nula após parse.");
         }
@@ -132,25 +484,277 @@ public class SaleImportService {
         }
     }
 
-    private String padRight(String s, int size) {
-        if (s == null) {
-            return "";
+    static final class BlockResult {
+        long bytes;
+        long parseNanos;
+        long validateNanos;
+        int lines;
+        int detailLines;
+        int ignored;
+        int invalid;
+        final List<Sale> sales = new ArrayList<>();
+        // Todas as linhas rejeitadas do bloco, com número de linha relativo a ele.
+        final List<ImportRejection> rejections = new ArrayList<>();
+    }
+
+    /**
+     * Estado de uma importação do lado da gravação: recebe os blocos já na ordem
+     * do arquivo, acumula os contadores e grava em lotes de batchSize. Com checkpoint,
+     * começa dos contadores dele e confirma a transação a cada batchSize vendas.
+     */
+    private final class ImportRun {
+        private final ImportWriteMode mode;
+        private final ImportListener listener;
+        private ImportCheckpoint checkpoint;
+        private TransactionStatus transaction;
+        private int salesSinceCheckpoint;
+        private final List<ImportError> errors = new ArrayList<>();
+        private List<Sale> batch = new ArrayList<>(batchSize);
+        // Filtro exato dos transaction codes do lote em montagem: repetições dentro do
+        // lote nem chegam ao banco. Repetições entre lotes são resolvidas pelo flushBatch.
+        private final Set<String> batchCodes = new HashSet<>();
+
+        private int totalLines;
+        private int detailLines;
+        private int ignored;
+        private int invalid;
+        private int saved;
+        private int duplicates;
+        private long bytesRead;
+        private final long startNanos = System.nanoTime();
+        private long readNanos;
+        private long parseNanos;
+        private long validateNanos;
+        private long persistNanos;
+        private long totalNanos;
+        // Datas dos lotes que gravaram alguma venda, para invalidar o cache de consultas.
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        // Totais das vendas gravadas na transação corrente, para o índice de totais.
+        private SaleTotalsIndex.Delta totals = newTotals();
+
+        ImportRun(ImportWriteMode mode, ImportListener listener, ImportCheckpoint checkpoint) {
+            this.mode = mode;
+            this.listener = listener;
+            this.checkpoint = checkpoint;
+            if (checkpoint != null) {
+                totalLines = checkpoint.getTotalLines();
+                detailLines = checkpoint.getDetailLines();
+                saved = checkpoint.getSaved();
+                ignored = checkpoint.getIgnored();
+                invalid = checkpoint.getInvalid();
+                duplicates = checkpoint.getDuplicates();
+                bytesRead = checkpoint.getByteOffset();
+            }
+        }
+
+        void accept(BlockResult block) {
+            for (ImportRejection rejection : block.rejections) {
+                long line = totalLines + rejection.line();
+                if (errors.size() < MAX_ERRORS_RETURNED) {
+                    errors.add(new ImportError((int) line, rejection.message()));
+                }
+                listener.onRejected(new ImportRejection(line, rejection.reason(), rejection.message(),
+                        rejection.content()));
+            }
+
+            totalLines += block.lines;
+            detailLines += block.detailLines;
+            ignored += block.ignored;
+            invalid += block.invalid;
+            bytesRead += block.bytes;
+            parseNanos += block.parseNanos;
+            validateNanos += block.validateNanos;
+            importMetrics.block(block.lines, block.bytes);
+
+            for (Sale sale : block.sales) {
+                if (!batchCodes.add(sale.getTransactionCode())) {
+                    duplicates++;
+                    continue;
+                }
+                batch.add(sale);
+                salesSinceCheckpoint++;
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            }
+
+            // Só no fim do bloco: o offset do checkpoint tem de cair em início de linha.
+            if (checkpoint != null && salesSinceCheckpoint >= batchSize) {
+                checkpoint();
+            }
+
+            listener.onProgress(totalLines, bytesRead, saved, invalid);
         }
-        if (s.length() >= size) {
-            return s;
+
+        void flush() {
+            long start = System.nanoTime();
+            int inserted = flushBatch(batch, mode, totals != null ? totals : SaleTotalsSink.NONE);
+            if (!batch.isEmpty()) {
+                long nanos = System.nanoTime() - start;
+                persistNanos += nanos;
+                importMetrics.batch(batch.size(), nanos);
+            }
+            saved += inserted;
+            duplicates += batch.size() - inserted;
+            if (inserted > 0) {
+                for (Sale sale : batch) {
+                    LocalDate date = sale.getEventDate();
+                    if (firstDate == null || date.isBefore(firstDate)) {
+                        firstDate = date;
+                    }
+                    if (lastDate == null || date.isAfter(lastDate)) {
+                        lastDate = date;
+                    }
+                }
+            }
+            batch = new ArrayList<>(batchSize);
+            batchCodes.clear();
+        }
+
+        void begin() {
+            transaction = transactionManager.getTransaction(CHECKPOINT_TRANSACTION);
+        }
+
+        /**
+         * Grava o lote pendente e o checkpoint com tudo o que foi lido até aqui, confirma
+         * a transação e abre a próxima.
+         */
+        private void checkpoint() {
+            flush();
+            long start = System.nanoTime();
+            checkpoint.setByteOffset(bytesRead);
+            checkpoint.setTotalLines(totalLines);
+            checkpoint.setDetailLines(detailLines);
+            checkpoint.setSaved(saved);
+            checkpoint.setIgnored(ignored);
+            checkpoint.setInvalid(invalid);
+            checkpoint.setDuplicates(duplicates);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpoint = importCheckpointRepository.save(checkpoint);
+            publishWrites();
+
+            transactionManager.commit(transaction);
+            transaction = transactionManager.getTransaction(CHECKPOINT_TRANSACTION);
+            salesSinceCheckpoint = 0;
+            persistNanos += System.nanoTime() - start;
+        }
+
+        /**
+         * Fim da importação com checkpoint: remove o checkpoint e confirma o último trecho.
+         */
+        void complete() {
+            if (checkpoint.getVersion() != null) {
+                importCheckpointRepository.delete(checkpoint);
+            }
+            TransactionStatus current = transaction;
+            transaction = null;
+            transactionManager.commit(current);
+        }
+
+        /**
+         * Desfaz o trecho em andamento; o que já tinha checkpoint continua gravado.
+         */
+        void abort(Exception cause) {
+            if (transaction == null) {
+                return;
+            }
+            try {
+                transactionManager.rollback(transaction);
+            } catch (RuntimeException e) {
+                cause.addSuppressed(e);
+            } finally {
+                transaction = null;
+            }
+        }
+
+        /**
+         * Grava o último lote e fecha os tempos por etapa, depois que o pipeline terminou.
+         */
+        void finish(long readNanos) {
+            flush();
+            listener.onProgress(totalLines, bytesRead, saved, invalid);
+            this.readNanos = readNanos;
+            this.totalNanos = System.nanoTime() - startNanos;
+            importMetrics.stages(readNanos, parseNanos, validateNanos, persistNanos);
+        }
+
+        /**
+         * Agenda para o commit da transação corrente a invalidação do cache de consultas e a
+         * soma das vendas gravadas ao índice de totais, e recomeça a contagem.
+         */
+        void publishWrites() {
+            if (firstDate != null) {
+                saleQueryCache.invalidateAfterCommit(firstDate, lastDate);
+            }
+            if (totals != null) {
+                saleTotalsIndex.addAfterCommit(totals);
+                totals = newTotals();
+            }
+            firstDate = null;
+            lastDate = null;
+        }
+
+        private SaleTotalsIndex.Delta newTotals() {
+            return saleTotalsIndex.isEnabled() ? new SaleTotalsIndex.Delta() : null;
+        }
+
+        boolean isEmpty() {
+            return bytesRead == 0;
+        }
+
+        ImportResult result() {
+            return new ImportResult(totalLines, detailLines, saved, ignored, invalid, duplicates, errors,
+                    new StageTimings(millis(readNanos), millis(parseNanos), millis(validateNanos),
+                            millis(persistNanos), millis(totalNanos)));
+        }
+
+        private static long millis(long nanos) {
+            return nanos / 1_000_000;
         }
-        return String.format("%-" + size + "s", s);
     }
 
     public record ImportError(int line, String reason) {
     }
 
+    /**
+     * Linha rejeitada: número da linha no arquivo, campo que a invalidou (o mesmo da métrica
+     * {@code sale.import.invalid}), mensagem do erro e o conteúdo original da linha.
+     */
+    public record ImportRejection(long line, String reason, String message, String content) {
+    }
+
     public record ImportResult(
             int totalLines,
             int detailLines,
             int saved,
             int ignored,
             int invalid,
-            List<ImportError> errors) {
+            int duplicates,
+            List<ImportError> errors,
+            StageTimings timings) {
+
+        public ImportResult(int totalLines, int detailLines, int saved, int ignored, int invalid, int duplicates,
+                List<ImportError> errors) {
+            this(totalLines, detailLines, saved, ignored, invalid, duplicates, errors, StageTimings.NONE);
+        }
+
+        /**
+         * O mesmo resultado sem os tempos, que variam entre execuções: para comparar importações.
+         */
+        public ImportResult withoutTimings() {
+            return new ImportResult(totalLines, detailLines, saved, ignored, invalid, duplicates, errors);
+        }
+    }
+
+    /**
+     * Tempo de cada etapa da importação, em ms. Parse e validação rodam nos workers, então
+     * são a soma entre eles e podem passar do total; leitura é o tempo do leitor lendo
+     * blocos, e persist o da gravação dos lotes.
+     */
+    public record StageTimings(long readMillis, long parseMillis, long validateMillis, long persistMillis,
+            long totalMillis) {
+
+        public static final StageTimings NONE = new StageTimings(0, 0, 0, 0, 0);
     }
-}
\ No newline at end of file
+}
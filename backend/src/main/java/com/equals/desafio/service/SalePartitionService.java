@@ -0,0 +1,49 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.repository.SalePartitionWriter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.TreeSet;
+
+/**
+ * Mantém as partições mensais de sales: o mês anterior, o corrente e os três seguintes
+ * sempre existem, e meses que caíram na partição default (arquivos antigos ou futuros)
+ * ganham partição própria. Roda na subida da aplicação e ao fim de cada importação.
+ */
+@Service
+public class SalePartitionService {
+
+    static final int MONTHS_BEHIND = 1;
+    static final int MONTHS_AHEAD = 3;
+
+    private final SalePartitionWriter partitionWriter;
+
+    public SalePartitionService(SalePartitionWriter partitionWriter) {
+        this.partitionWriter = partitionWriter;
+    }
+
+    /**
+     * Cria as partições que faltam e devolve quantas foram criadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized int ensurePartitions() {
+        LocalDate current = LocalDate.now().withDayOfMonth(1);
+
+        TreeSet<LocalDate> months = new TreeSet<>();
+        for (int i = -MONTHS_BEHIND; i <= MONTHS_AHEAD; i++) {
+            months.add(current.plusMonths(i));
+        }
+        months.addAll(partitionWriter.monthsInDefault());
+
+        int created = 0;
+        for (LocalDate month : months) {
+            if (partitionWriter.createMonth(month)) {
+                created++;
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,134 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.QueryCacheProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache das páginas de GET /sales, limitado por quantidade (LRU) e por tempo
+ * (app.query-cache.max-entries e app.query-cache.ttl). Gravações de vendas invalidam
+ * só as páginas cujo intervalo de datas se sobrepõe às datas gravadas.
+ */
+@Component
+public class SaleQueryCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Cached> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Incrementado a cada invalidação: uma página lida antes dela não entra no cache.
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public SaleQueryCache(QueryCacheProperties properties) {
+        if (properties.getMaxEntries() < 0) {
+            throw new IllegalArgumentException("app.query-cache.max-entries não pode ser negativo.");
+        }
+        this.maxEntries = properties.getMaxEntries();
+        this.ttlNanos = properties.getTtl().toNanos();
+    }
+
+    /**
+     * Devolve a página em cache para a chave ou a carrega com {@code loader}. A carga
+     * roda fora do lock; páginas iguais carregadas ao mesmo tempo não são um problema.
+     */
+    public Entry get(Key key, Supplier<Entry> loader) {
+        long loadVersion;
+        synchronized (this) {
+            Cached cached = entries.get(key);
+            if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+                hits++;
+                return cached.entry();
+            }
+            if (cached != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadVersion = version;
+        }
+
+        long loadedAt = System.nanoTime();
+        Entry loaded = loader.get();
+
+        synchronized (this) {
+            if (loadVersion == version && maxEntries > 0) {
+                entries.put(key, new Cached(loaded, loadedAt));
+                evictEldest();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Descarta as páginas que podem conter vendas com data entre {@code start} e {@code end}.
+     */
+    public synchronized void invalidate(LocalDate start, LocalDate end) {
+        version++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (!key.afterDate().isAfter(end) && !key.end().isBefore(start)) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Invalida quando a transação corrente confirmar (ou já, se não houver transação):
+     * antes do commit as vendas novas ainda não são visíveis para as consultas.
+     */
+    public void invalidateAfterCommit(LocalDate start, LocalDate end) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(start, end);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(start, end);
+            }
+        });
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), maxEntries, hits, misses, evictions, invalidations);
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<Key, Cached>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Consulta já normalizada: período, posição do keyset e tamanho da página. Só vendas
+     * com data entre {@code afterDate} e {@code end} podem aparecer na página.
+     */
+    public record Key(LocalDate start, LocalDate end, LocalDate afterDate, long afterId, int size) {
+    }
+
+    public record Entry(SaleQueryService.SalePage page, String etag) {
+    }
+
+    private record Cached(Entry entry, long loadedAt) {
+    }
+
+    public record Stats(int size, int maxEntries, long hits, long misses, long evictions, long invalidations) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.domain.SaleView;
+import com.equals.desafio.repository.SaleCursorReader;
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleSummaryReader;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class SaleQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Limites do período quando start/end não são informados.
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final int EXPORT_BUFFER_SIZE = 1 << 16;
+
+    private final SaleRepository saleRepository;
+    private final SaleCursorReader saleCursorReader;
+    private final SaleSummaryReader saleSummaryReader;
+    private final SaleQueryCache saleQueryCache;
+    private final SaleTotalsIndex saleTotalsIndex;
+    private final ObjectMapper objectMapper;
+
+    public SaleQueryService(SaleRepository saleRepository, SaleCursorReader saleCursorReader,
+            SaleSummaryReader saleSummaryReader, SaleQueryCache saleQueryCache, SaleTotalsIndex saleTotalsIndex,
+            ObjectMapper objectMapper) {
+        this.saleRepository = saleRepository;
+        this.saleCursorReader = saleCursorReader;
+        this.saleSummaryReader = saleSummaryReader;
+        this.saleQueryCache = saleQueryCache;
+        this.saleTotalsIndex = saleTotalsIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Uma página de vendas do período, ordenada por (eventDate, id). O {@code nextCursor}
+     * da resposta, quando presente, busca a página seguinte.
+     */
+    public SalePage page(LocalDate start, LocalDate end, String cursor, Integer size) {
+        return load(key(start, end, cursor, size));
+    }
+
+    /**
+     * A mesma página de {@link #page}, servida pelo cache de consultas e acompanhada do
+     * ETag do conteúdo. Um acerto no cache não toca o banco.
+     */
+    public SaleQueryCache.Entry cachedPage(LocalDate start, LocalDate end, String cursor, Integer size) {
+        SaleQueryCache.Key key = key(start, end, cursor, size);
+        return saleQueryCache.get(key, () -> {
+            SalePage page = load(key);
+            return new SaleQueryCache.Entry(page, etag(page));
+        });
+    }
+
+    private SaleQueryCache.Key key(LocalDate start, LocalDate end, String cursor, Integer size) {
+
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+
+        LocalDate from = start != null ? start : MIN_DATE;
+        LocalDate to = end != null ? end : MAX_DATE;
+
+        // Sem cursor, a posição inicial (from, 0) fica antes de qualquer venda do período.
+        LocalDate afterDate = from;
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = Cursor.decode(cursor);
+            afterDate = position.eventDate();
+            afterId = position.id();
+        }
+
+        return new SaleQueryCache.Key(from, to, afterDate, afterId, pageSize);
+    }
+
+    private SalePage load(SaleQueryCache.Key key) {
+        int pageSize = key.size();
+
+        // Uma venda a mais indica se existe próxima página, sem precisar de COUNT.
+        List<SaleView> sales = saleRepository.findPageAfter(
+                key.start(), key.end(), key.afterDate(), key.afterId(), Limit.of(pageSize + 1));
+
+        if (sales.size() <= pageSize) {
+            return new SalePage(sales, null);
+        }
+
+        List<SaleView> items = sales.subList(0, pageSize);
+        SaleView last = items.get(pageSize - 1);
+        return new SalePage(items, new Cursor(last.eventDate(), last.id()).encode());
+    }
+
+    // ETag forte: hash do JSON da página, então só muda quando o conteúdo muda.
+    private String etag(SalePage page) {
+        MessageDigest digest = ContentHash.newDigest();
+        digest.update(objectMapper.writeValueAsBytes(page));
+        return "\"" + ContentHash.hex(digest) + "\"";
+    }
+
+    /**
+     * Escreve todas as vendas do período como NDJSON (um objeto JSON por linha),
+     * lidas por cursor, com memória constante independente do tamanho do período.
+     */
+    public void export(LocalDate start, LocalDate end, OutputStream out) throws IOException {
+
+        LocalDate from = start != null ? start : MIN_DATE;
+        LocalDate to = end != null ? end : MAX_DATE;
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
+        long[] rows = {0};
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(buffered)) {
+            saleCursorReader.forEach(from, to, row -> {
+                writer.write(row);
+                rows[0]++;
+            });
+        }
+        if (rows[0] > 0) {
+            buffered.write('\n');
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Quantidade e somas (bruto, líquido e taxa) das vendas do período, agrupadas pelas
+     * dimensões de {@code groupBy}: lista separada por vírgula com no máximo um entre
+     * day, week e month, mais brand e/ou establishment. Sem groupBy, uma linha com o total.
+     */
+    public List<SaleSummaryReader.Row> summary(LocalDate start, LocalDate end, String groupBy) {
+
+        SaleSummaryReader.Period period = null;
+        boolean byEstablishment = false;
+        boolean byBrand = false;
+
+        if (groupBy != null && !groupBy.isBlank()) {
+            for (String part : groupBy.split(",")) {
+                String dimension = part.trim().toLowerCase(Locale.ROOT);
+                switch (dimension) {
+                    case "day", "week", "month" -> {
+                        if (period != null) {
+                            throw new IllegalArgumentException("groupBy aceita apenas um entre day, week e month.");
+                        }
+                        period = SaleSummaryReader.Period.valueOf(dimension.toUpperCase(Locale.ROOT));
+                    }
+                    case "establishment" -> byEstablishment = true;
+                    case "brand" -> byBrand = true;
+                    default -> throw new IllegalArgumentException(
+                            "groupBy inválido: " + part.trim() + ". Use day, week, month, brand ou establishment.");
+                }
+            }
+        }
+
+        return saleSummaryReader.summarize(
+                start != null ? start : MIN_DATE,
+                end != null ? end : MAX_DATE,
+                period, byEstablishment, byBrand);
+    }
+
+    /**
+     * Quantidade e somas das vendas de um estabelecimento no período, do índice em memória
+     * ou, com ele desligado ou ainda carregando, do rollup diário.
+     */
+    public EstablishmentTotals totals(String establishmentCode, LocalDate start, LocalDate end) {
+        if (establishmentCode == null || establishmentCode.isBlank()) {
+            throw new IllegalArgumentException("establishment obrigatório.");
+        }
+        String code = establishmentCode.trim();
+        SaleSummaryReader.Totals totals = saleTotalsIndex.isReady()
+                ? saleTotalsIndex.totals(code, start, end)
+                : saleSummaryReader.establishmentTotals(code,
+                        start != null ? start : MIN_DATE, end != null ? end : MAX_DATE);
+        return new EstablishmentTotals(code, start, end, totals.count(),
+                BigDecimal.valueOf(totals.totalCents(), 2),
+                BigDecimal.valueOf(totals.netCents(), 2),
+                BigDecimal.valueOf(totals.totalCents() - totals.netCents(), 2));
+    }
+
+    /**
+     * Posição do keyset, trafegada como texto opaco (Base64 de "data,id").
+     */
+    record Cursor(LocalDate eventDate, long id) {
+
+        String encode() {
+            String raw = eventDate + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII);
+                int comma = raw.indexOf(',');
+                return new Cursor(LocalDate.parse(raw.substring(0, comma)), Long.parseLong(raw.substring(comma + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("cursor inválido.");
+            }
+        }
+    }
+
+    public record SalePage(List<SaleView> items, String nextCursor) {
+    }
+
+    public record EstablishmentTotals(
+            String establishmentCode,
+            LocalDate start,
+            LocalDate end,
+            long count,
+            BigDecimal totalAmount,
+            BigDecimal netAmount,
+            BigDecimal feeAmount) {
+    }
+}
@@ -0,0 +1,489 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.TotalsIndexProperties;
+import com.equals.desafio.repository.SaleSummaryReader.Totals;
+import com.equals.desafio.repository.SaleTotalsReader;
+import com.equals.desafio.repository.SaleTotalsSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Totais de vendas por estabelecimento em memória (app.totals-index.enabled), para somar
+ * qualquer período sem ir ao banco. Cada estabelecimento guarda os dias em que tem vendas,
+ * ordenados, e uma árvore de Fenwick por medida (quantidade, total e líquido, em centavos)
+ * sobre esses dias: um período custa duas buscas binárias e duas somas de prefixo, O(log n),
+ * sem alocar.
+ * <p>
+ * É montado a partir do rollup diário na subida, antes de a aplicação receber requisições,
+ * e recebe as vendas gravadas depois de cada commit. Vale só para esta instância: vendas
+ * gravadas por outra só aparecem depois de um {@link #reload()}. Com
+ * app.totals-index.background-load, a carga inicial roda em segundo plano e a aplicação
+ * sobe sem esperá-la; até o fim, {@link #isReady()} é falso. Uma carga em segundo plano que
+ * falha é registrada no log e repetida algumas vezes, com espera crescente.
+ */
+@Component
+public class SaleTotalsIndex implements SmartInitializingSingleton {
+
+    public enum Measure {
+        COUNT,
+        TOTAL_CENTS,
+        NET_CENTS
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SaleTotalsIndex.class);
+
+    static final int LOAD_ATTEMPTS = 5;
+    static final Duration FIRST_LOAD_RETRY = Duration.ofSeconds(1);
+
+    // Quanto o reload espera, segurando o lock do rollup, as transações confirmadas aplicarem
+    // seus totais. Elas só precisam do lock do índice, então passar disso é defeito, não carga.
+    static final Duration COMMITTED_WAIT = Duration.ofSeconds(10);
+
+    private final boolean enabled;
+    private final boolean backgroundLoad;
+    private final SaleTotalsReader reader;
+    private final StampedLock lock = new StampedLock();
+    private final ReentrantLock commits = new ReentrantLock();
+    private final Condition applied = commits.newCondition();
+    private int committed;
+    private Map<String, Establishment> establishments = new HashMap<>();
+    private volatile boolean ready;
+
+    public SaleTotalsIndex(TotalsIndexProperties properties, SaleTotalsReader reader) {
+        this.enabled = properties.isEnabled();
+        this.backgroundLoad = properties.isBackgroundLoad();
+        this.reader = reader;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ligado e com a carga inicial concluída.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled && backgroundLoad) {
+            Thread.ofVirtual().name("totals-index-load").start(this::loadInBackground);
+        } else {
+            reload();
+        }
+    }
+
+    // Uma falha (ex.: banco ainda subindo) não derruba a aplicação, que segue lendo o rollup.
+    private void loadInBackground() {
+        Duration wait = FIRST_LOAD_RETRY;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                reload();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == LOAD_ATTEMPTS) {
+                    log.error("Índice de totais não carregou em {} tentativas; /sales/totals segue lendo o rollup",
+                            LOAD_ATTEMPTS, e);
+                    return;
+                }
+                log.warn("Falha ao carregar o índice de totais (tentativa {} de {}); nova tentativa em {} s",
+                        attempt, LOAD_ATTEMPTS, wait.toSeconds(), e);
+            }
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            wait = wait.multipliedBy(2);
+        }
+    }
+
+    /**
+     * Remonta o índice a partir do rollup (ex.: depois de recalculá-lo). As consultas esperam
+     * até o fim; gravações no rollup também, pelo lock do {@link SaleTotalsReader}. Com o
+     * lock obtido, espera as transações já confirmadas somarem seus totais ao índice antigo:
+     * elas já estão no rollup e não podem ser somadas de novo ao novo.
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        Loader loader = new Loader();
+        long[] stamp = new long[1];
+        try {
+            reader.forEach(() -> {
+                awaitCommitted();
+                stamp[0] = lock.writeLock();
+            }, loader);
+            loader.finish();
+            establishments = loader.loaded;
+            ready = true;
+        } finally {
+            if (stamp[0] != 0) {
+                lock.unlockWrite(stamp[0]);
+            }
+        }
+    }
+
+    /**
+     * Soma as vendas da transação corrente quando ela confirmar (ou já, se não houver
+     * transação), como o {@link SaleQueryCache#invalidateAfterCommit}.
+     */
+    public void addAfterCommit(Delta delta) {
+        if (!enabled || delta.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                commitStarted();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!committing) {
+                    return;
+                }
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply(delta);
+                    }
+                } finally {
+                    commitApplied();
+                }
+            }
+        });
+    }
+
+    private void commitStarted() {
+        commits.lock();
+        try {
+            committed++;
+        } finally {
+            commits.unlock();
+        }
+    }
+
+    private void commitApplied() {
+        commits.lock();
+        try {
+            if (--committed == 0) {
+                applied.signalAll();
+            }
+        } finally {
+            commits.unlock();
+        }
+    }
+
+    // Transações que passaram do beforeCommit e ainda não aplicaram seus totais. Sem espera
+    // ativa: quem aplica por último acorda o reload, que desiste em COMMITTED_WAIT.
+    private void awaitCommitted() {
+        long remaining = COMMITTED_WAIT.toNanos();
+        commits.lock();
+        try {
+            while (committed > 0) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Transações confirmadas não aplicaram os totais ao índice em "
+                            + COMMITTED_WAIT.toSeconds() + " s; recarga cancelada.");
+                }
+                remaining = applied.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recarga do índice de totais interrompida.", e);
+        } finally {
+            commits.unlock();
+        }
+    }
+
+    /**
+     * Uma medida das vendas do estabelecimento com data entre {@code start} e {@code end}
+     * (inclusive; nulos não limitam).
+     */
+    public long sum(String establishmentCode, LocalDate start, LocalDate end, Measure measure) {
+        long stamp = readLock();
+        try {
+            Establishment establishment = establishments.get(establishmentCode);
+            if (establishment == null) {
+                return 0;
+            }
+            int from = establishment.lowerBound(start);
+            int to = establishment.upperBound(end);
+            long[] tree = switch (measure) {
+                case COUNT -> establishment.counts;
+                case TOTAL_CENTS -> establishment.totals;
+                case NET_CENTS -> establishment.nets;
+            };
+            return from < to ? prefix(tree, to) - prefix(tree, from) : 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Totals totals(String establishmentCode, LocalDate start, LocalDate end) {
+        long stamp = readLock();
+        try {
+            Establishment establishment = establishments.get(establishmentCode);
+            if (establishment == null) {
+                return Totals.ZERO;
+            }
+            int from = establishment.lowerBound(start);
+            int to = establishment.upperBound(end);
+            if (from >= to) {
+                return Totals.ZERO;
+            }
+            return new Totals(
+                    prefix(establishment.counts, to) - prefix(establishment.counts, from),
+                    prefix(establishment.totals, to) - prefix(establishment.totals, from),
+                    prefix(establishment.nets, to) - prefix(establishment.nets, from));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long readLock() {
+        if (!enabled) {
+            throw new IllegalStateException("Índice de totais desligado (app.totals-index.enabled).");
+        }
+        return lock.readLock();
+    }
+
+    void apply(Delta delta) {
+        long stamp = lock.writeLock();
+        try {
+            for (Map.Entry<String, Map<LocalDate, long[]>> entry : delta.days.entrySet()) {
+                Establishment establishment = establishments.get(entry.getKey());
+                if (establishment == null) {
+                    establishment = new Establishment();
+                    establishments.put(entry.getKey(), establishment);
+                }
+                establishment.add(entry.getValue());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Soma das posições [0, count) da árvore.
+    private static long prefix(long[] tree, int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Vendas de uma transação agrupadas por (estabelecimento, dia), até o commit. Cresce com
+     * as combinações distintas, não com a quantidade de vendas.
+     */
+    public static final class Delta implements SaleTotalsSink {
+
+        private final Map<String, Map<LocalDate, long[]>> days = new HashMap<>();
+
+        @Override
+        public void add(String establishmentCode, LocalDate day, long count, long totalCents, long netCents) {
+            long[] values = days.computeIfAbsent(establishmentCode, code -> new HashMap<>())
+                    .computeIfAbsent(day, d -> new long[3]);
+            values[0] += count;
+            values[1] += totalCents;
+            values[2] += netCents;
+        }
+
+        public boolean isEmpty() {
+            return days.isEmpty();
+        }
+    }
+
+    /**
+     * Dias (epoch day) de um estabelecimento, ordenados, e as árvores de Fenwick, 1-based:
+     * a posição i + 1 das árvores corresponde a days[i].
+     */
+    private static final class Establishment {
+        int size;
+        int[] days = new int[0];
+        long[] counts = new long[1];
+        long[] totals = new long[1];
+        long[] nets = new long[1];
+
+        // Primeira posição com dia >= start.
+        int lowerBound(LocalDate start) {
+            return start == null ? 0 : search((int) start.toEpochDay(), false);
+        }
+
+        // Primeira posição com dia > end.
+        int upperBound(LocalDate end) {
+            return end == null ? size : search((int) end.toEpochDay(), true);
+        }
+
+        private int search(int day, boolean inclusive) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < day || (inclusive && days[mid] == day)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Soma as medidas por dia. Dias já conhecidos são atualizados na árvore; um dia novo
+         * reconstrói as árvores do estabelecimento, em O(n).
+         */
+        void add(Map<LocalDate, long[]> values) {
+            int[] fresh = new int[values.size()];
+            int freshCount = 0;
+            for (LocalDate day : values.keySet()) {
+                int epochDay = (int) day.toEpochDay();
+                int position = search(epochDay, false);
+                if (position == size || days[position] != epochDay) {
+                    fresh[freshCount++] = epochDay;
+                }
+            }
+            if (freshCount > 0) {
+                insertDays(Arrays.copyOf(fresh, freshCount));
+            }
+            for (Map.Entry<LocalDate, long[]> entry : values.entrySet()) {
+                int position = search((int) entry.getKey().toEpochDay(), false) + 1;
+                long[] delta = entry.getValue();
+                for (int i = position; i <= size; i += i & -i) {
+                    counts[i] += delta[0];
+                    totals[i] += delta[1];
+                    nets[i] += delta[2];
+                }
+            }
+        }
+
+        private void insertDays(int[] fresh) {
+            Arrays.sort(fresh);
+            int newSize = size + fresh.length;
+            int[] mergedDays = new int[newSize];
+            long[] mergedCounts = new long[newSize + 1];
+            long[] mergedTotals = new long[newSize + 1];
+            long[] mergedNets = new long[newSize + 1];
+
+            unbuild(counts, size);
+            unbuild(totals, size);
+            unbuild(nets, size);
+            for (int i = 0, j = 0, k = 0; k < newSize; k++) {
+                if (j == fresh.length || (i < size && days[i] < fresh[j])) {
+                    mergedDays[k] = days[i];
+                    mergedCounts[k + 1] = counts[i + 1];
+                    mergedTotals[k + 1] = totals[i + 1];
+                    mergedNets[k + 1] = nets[i + 1];
+                    i++;
+                } else {
+                    mergedDays[k] = fresh[j++];
+                }
+            }
+            build(mergedCounts, newSize);
+            build(mergedTotals, newSize);
+            build(mergedNets, newSize);
+
+            size = newSize;
+            days = mergedDays;
+            counts = mergedCounts;
+            totals = mergedTotals;
+            nets = mergedNets;
+        }
+
+        // Valores por posição -> árvore de Fenwick, em O(n).
+        static void build(long[] tree, int size) {
+            for (int i = 1; i <= size; i++) {
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        // Inverso do build: árvore -> valores por posição.
+        static void unbuild(long[] tree, int size) {
+            for (int i = size; i >= 1; i--) {
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    tree[parent] -= tree[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Monta os estabelecimentos a partir das linhas do rollup, que chegam ordenadas por
+     * (estabelecimento, dia).
+     */
+    private static final class Loader implements SaleTotalsSink {
+        final Map<String, Establishment> loaded = new HashMap<>();
+        private String currentCode;
+        private Establishment current;
+
+        @Override
+        public void add(String establishmentCode, LocalDate day, long count, long totalCents, long netCents) {
+            if (!establishmentCode.equals(currentCode)) {
+                finish();
+                currentCode = establishmentCode;
+                current = new Establishment();
+                current.days = new int[16];
+                current.counts = new long[17];
+                current.totals = new long[17];
+                current.nets = new long[17];
+                loaded.put(establishmentCode, current);
+            }
+            if (current.size == current.days.length) {
+                int capacity = current.size * 2;
+                current.days = Arrays.copyOf(current.days, capacity);
+                current.counts = Arrays.copyOf(current.counts, capacity + 1);
+                current.totals = Arrays.copyOf(current.totals, capacity + 1);
+                current.nets = Arrays.copyOf(current.nets, capacity + 1);
+            }
+            int position = ++current.size;
+            current.days[position - 1] = (int) day.toEpochDay();
+            current.counts[position] = count;
+            current.totals[position] = totalCents;
+            current.nets[position] = netCents;
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            int size = current.size;
+            current.days = Arrays.copyOf(current.days, size);
+            current.counts = Arrays.copyOf(current.counts, size + 1);
+            current.totals = Arrays.copyOf(current.totals, size + 1);
+            current.nets = Arrays.copyOf(current.nets, size + 1);
+            Establishment.build(current.counts, size);
+            Establishment.build(current.totals, size);
+            Establishment.build(current.nets, size);
+            current = null;
+            currentCode = null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+-- Esquema como era gerado pelo Hibernate (ddl-auto=update) antes das migrations.
+-- Bancos que já existiam entram com baseline na versão 1 e não executam este script.
+
+CREATE SEQUENCE sales_seq START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE sales (
+    id                 bigint         NOT NULL,
+    brand              varchar(30),
+    establishment_code varchar(10)    NOT NULL,
+    event_date         date           NOT NULL,
+    event_time         time,
+    net_amount         numeric(19, 2),
+    total_amount       numeric(19, 2) NOT NULL,
+    transaction_code   varchar(32),
+    CONSTRAINT sales_pkey PRIMARY KEY (id),
+    CONSTRAINT ux_sales_transaction_code UNIQUE (transaction_code)
+);
+
+CREATE INDEX ix_sales_event_date_id ON sales (event_date, id);
+
+CREATE TABLE imported_files (
+    content_hash varchar(64)              NOT NULL,
+    size_bytes   bigint                   NOT NULL,
+    imported_at  timestamp with time zone NOT NULL,
+    total_lines  integer                  NOT NULL,
+    detail_lines integer                  NOT NULL,
+    saved        integer                  NOT NULL,
+    ignored      integer                  NOT NULL,
+    invalid      integer                  NOT NULL,
+    duplicates   integer                  NOT NULL,
+    CONSTRAINT imported_files_pkey PRIMARY KEY (content_hash)
+);
+
+CREATE TABLE sales_daily_rollup (
+    event_date         date           NOT NULL,
+    establishment_code varchar(10)    NOT NULL,
+    brand              varchar(30)    NOT NULL,
+    sale_count         bigint         NOT NULL,
+    total_amount       numeric(24, 2) NOT NULL,
+    net_amount         numeric(24, 2) NOT NULL,
+    CONSTRAINT sales_daily_rollup_pkey PRIMARY KEY (event_date, establishment_code, brand)
+);
@@ -0,0 +1,85 @@
+-- Particiona sales por mês de event_date.
+--
+-- Num particionamento, índices únicos precisam incluir a chave de partição, então a
+-- unicidade do transaction code (deduplicação da importação) passa para uma tabela própria.
+
+CREATE TABLE sale_transaction_codes (
+    transaction_code varchar(32) NOT NULL,
+    CONSTRAINT sale_transaction_codes_pkey PRIMARY KEY (transaction_code)
+);
+
+INSERT INTO sale_transaction_codes (transaction_code)
+SELECT transaction_code FROM sales WHERE transaction_code IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+-- Libera os nomes dos índices para a nova tabela.
+ALTER TABLE sales RENAME TO sales_unpartitioned;
+ALTER TABLE sales_unpartitioned DROP CONSTRAINT sales_pkey;
+ALTER TABLE sales_unpartitioned DROP CONSTRAINT IF EXISTS ux_sales_transaction_code;
+DROP INDEX IF EXISTS ix_sales_event_date_id;
+DROP INDEX IF EXISTS ix_sales_summary;
+
+CREATE TABLE sales (
+    id                 bigint         NOT NULL,
+    brand              varchar(30),
+    establishment_code varchar(10)    NOT NULL,
+    event_date         date           NOT NULL,
+    event_time         time,
+    net_amount         numeric(19, 2),
+    total_amount       numeric(19, 2) NOT NULL,
+    transaction_code   varchar(32),
+    CONSTRAINT sales_pkey PRIMARY KEY (id, event_date)
+) PARTITION BY RANGE (event_date);
+
+-- Recebe datas de meses que ainda não têm partição; create_sales_partition depois
+-- move essas linhas para a partição do mês.
+CREATE TABLE sales_default PARTITION OF sales DEFAULT;
+
+CREATE INDEX ix_sales_event_date_id ON sales (event_date, id);
+CREATE INDEX ix_sales_establishment_event_date ON sales (establishment_code, event_date);
+
+-- Cria a partição do mês de "month" (se ainda não existe), movendo para ela as linhas
+-- desse mês que estiverem na partição default. Devolve true quando criou.
+CREATE FUNCTION create_sales_partition(month date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    first_day  date := date_trunc('month', month)::date;
+    next_month date := (date_trunc('month', month) + interval '1 month')::date;
+    partition  text := 'sales_' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE sales INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition);
+    -- O CHECK evita que o ATTACH varra a partição para validar o intervalo.
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (event_date >= %L AND event_date < %L)',
+                   partition, partition || '_range', first_day, next_month);
+    EXECUTE format('WITH moved AS (DELETE FROM sales_default WHERE event_date >= %L AND event_date < %L RETURNING *) '
+                   || 'INSERT INTO %I SELECT * FROM moved', first_day, next_month, partition);
+    EXECUTE format('ALTER TABLE sales ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition, first_day, next_month);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition, partition || '_range');
+    RETURN true;
+END;
+$$;
+
+SELECT create_sales_partition(month)
+FROM (SELECT DISTINCT date_trunc('month', event_date)::date AS month FROM sales_unpartitioned) months;
+
+SELECT create_sales_partition((date_trunc('month', current_date) + make_interval(months => n))::date)
+FROM generate_series(0, 3) AS n;
+
+INSERT INTO sales (id, brand, establishment_code, event_date, event_time, net_amount, total_amount, transaction_code)
+SELECT id, brand, establishment_code, event_date, event_time, net_amount, total_amount, transaction_code
+FROM sales_unpartitioned;
+
+DROP TABLE sales_unpartitioned;
+
+-- Bancos criados quando o id era IDENTITY/alocação 1 podem ter a sequence atrás do
+-- maior id. Com o otimizador pooled, o próximo nextval v reserva (v - 100, v].
+SELECT setval('sales_seq', GREATEST(
+        (SELECT last_value FROM sales_seq),
+        (SELECT COALESCE(MAX(id), 0) + 100 FROM sales)));
+
+ANALYZE sales;
@@ -0,0 +1,17 @@
+-- Progresso de uma importação de arquivo local, gravado na mesma transação de cada grupo
+-- de lotes confirmado. Uma nova tentativa do mesmo arquivo (mesmo SHA-256) continua de
+-- byte_offset com os contadores daqui; a linha é removida quando a importação termina.
+CREATE TABLE import_checkpoints (
+    content_hash varchar(64)              NOT NULL,
+    size_bytes   bigint                   NOT NULL,
+    byte_offset  bigint                   NOT NULL,
+    total_lines  integer                  NOT NULL,
+    detail_lines integer                  NOT NULL,
+    saved        integer                  NOT NULL,
+    ignored      integer                  NOT NULL,
+    invalid      integer                  NOT NULL,
+    duplicates   integer                  NOT NULL,
+    updated_at   timestamp with time zone NOT NULL,
+    version      bigint                   NOT NULL,
+    CONSTRAINT import_checkpoints_pkey PRIMARY KEY (content_hash)
+);
@@ -0,0 +1,50 @@
+package com.equals.desafio.config;
+
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleSummaryReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Roda contra o banco, como o DesafioApplicationTests, com o próprio banco no papel de
+ * réplica: confere que o roteamento está ligado no contexto, não só no DataSource isolado.
+ */
+@SpringBootTest(properties = {
+        "app.read-routing.enabled=true",
+        "app.read-routing.replicas[0].url=${spring.datasource.url}"
+})
+class ReadRoutingConfigTest {
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private SaleSummaryReader saleSummaryReader;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void deveMandarTransacoesSomenteLeituraParaAReplica() {
+        double replica = reads("replica-0");
+        double primary = reads("primary");
+        LocalDate day = LocalDate.of(2024, 1, 1);
+
+        saleRepository.findPageAfter(day, day, day.minusDays(1), 0, Limit.of(1));
+        saleSummaryReader.establishmentTotals("1", day, day);
+
+        assertEquals(replica + 2, reads("replica-0"));
+        assertEquals(primary, reads("primary"));
+    }
+
+    private double reads(String target) {
+        return registry.get("datasource.reads").tag("target", target).counter().count();
+    }
+}
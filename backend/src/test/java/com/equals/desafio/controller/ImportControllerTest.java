@@ -0,0 +1,67 @@
+package com.equals.desafio.controller;
+
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.service.ImportJobService;
+import com.equals.desafio.service.ImportScheduler;
+import com.equals.desafio.service.SalePartitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImportControllerTest {
+
+    @Test
+    void deveResponder400ParaCorpoGzipTruncadoOuInvalido() throws Exception {
+        MockMvc mvc = mvc();
+        byte[] gzipped = gzip(getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")
+                .readAllBytes());
+
+        mvc.perform(post("/imports?name=truncado.txt.gz")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(Arrays.copyOf(gzipped, gzipped.length / 2)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", startsWith("Conteúdo gzip truncado")));
+
+        mvc.perform(post("/imports?name=cru.txt")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content("0HEADER\n".getBytes()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", startsWith("Conteúdo gzip inválido")));
+    }
+
+    private static MockMvc mvc() {
+        ImportProperties properties = new ImportProperties();
+        properties.setBlockSize(4096);
+        ImportJobService jobs = new ImportJobService(importService().properties(properties).build(),
+                mock(SalePartitionService.class), new ImportScheduler(properties, null, new SimpleMeterRegistry()),
+                properties, new SimpleMeterRegistry(), JsonMapper.builder().build());
+        return MockMvcBuilders.standaloneSetup(new ImportController(jobs))
+                .setControllerAdvice(new ApiExceptionHandler())
+                .build();
+    }
+
+    private static byte[] gzip(byte[] content) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,217 @@
+package com.equals.desafio.load;
+
+import com.equals.desafio.repository.SaleRollupWriter;
+import com.equals.desafio.service.ContentHash;
+import com.equals.desafio.service.SaleTotalsIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Teste de carga de ponta a ponta: gera um arquivo sintético, importa por POST /imports
+ * (corpo cru, em gzip por padrão) na aplicação rodando numa porta local e consulta
+ * GET /sales e GET /sales/summary em períodos aleatórios. Reporta linhas/s da importação,
+ * latência p50/p95/p99 das consultas e o pico de RSS do processo (VmHWM do Linux; a
+ * aplicação roda na mesma JVM do teste).
+ * <p>
+ * Usa o banco configurado em application.properties (o Postgres local) e, no fim, remove
+ * as vendas geradas pelo prefixo dos transaction codes e o registro do arquivo pelo hash do
+ * conteúdo, recalcula o rollup diário e recarrega o índice de totais em memória. Importações
+ * de outros arquivos no mesmo banco não são tocadas.
+ * <p>
+ * Roda só com o profile benchmark: {@code mvn test -Pbenchmark -Dtest=ImportLoadBenchmarkTest}.
+ * Parâmetros: -Dload.rows (padrão 1 milhão), -Dload.invalid-share (0.01), -Dload.gzip (true),
+ * -Dload.queries (300) e -Dload.writer (jpa ou copy; sem ele vale o padrão da aplicação).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ImportLoadBenchmarkTest {
+
+    private static final long ROWS = Long.getLong("load.rows", 1_000_000L);
+    private static final double INVALID_SHARE = Double.parseDouble(System.getProperty("load.invalid-share", "0.01"));
+    private static final boolean GZIP = Boolean.parseBoolean(System.getProperty("load.gzip", "true"));
+    private static final int QUERIES = Integer.getInteger("load.queries", 300);
+    private static final String WRITER = System.getProperty("load.writer", "");
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+    private static final int DAYS = 730;
+
+    private final long seed = System.nanoTime();
+    // Chave do arquivo gerado em imported_files: o hash do conteúdo descompactado.
+    private String contentHash;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SaleRollupWriter saleRollupWriter;
+
+    @Autowired
+    private SaleTotalsIndex saleTotalsIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    private Path dir;
+
+    @AfterEach
+    void removeGeneratedSales() {
+        String codes = HexFormat.of().toHexDigits(seed) + "%";
+        jdbcTemplate.update("DELETE FROM sales WHERE transaction_code LIKE ?", codes);
+        jdbcTemplate.update("DELETE FROM sale_transaction_codes WHERE transaction_code LIKE ?", codes);
+        if (contentHash != null) {
+            jdbcTemplate.update("DELETE FROM imported_files WHERE content_hash = ?", contentHash);
+        }
+        saleRollupWriter.rebuild();
+        saleTotalsIndex.reload();
+    }
+
+    @Test
+    void deveMedirImportacaoEConsultasSobCarga() throws Exception {
+        Path file = dir.resolve(GZIP ? "vendas.txt.gz" : "vendas.txt");
+        long generateStart = System.nanoTime();
+        SaleFileGenerator.Stats stats = new SaleFileGenerator(seed)
+                .rows(ROWS)
+                .invalidShare(INVALID_SHARE)
+                .period(START, DAYS)
+                .write(file, GZIP);
+        try (InputStream in = GZIP ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            contentHash = ContentHash.of(in);
+        }
+        System.out.printf("%n%,d linhas geradas (%,d inválidas), %,d bytes%s em %.1f s%n", stats.lines(),
+                stats.invalid(), Files.size(file), GZIP ? " em gzip" : "", (System.nanoTime() - generateStart) / 1e9);
+
+        resetPeakRss();
+        HttpRequest.Builder upload = HttpRequest.newBuilder(uri("/imports?name=" + file.getFileName()
+                        + (WRITER.isBlank() ? "" : "&writer=" + WRITER)))
+                .header("Content-Type", "application/octet-stream")
+                .timeout(Duration.ofMinutes(30))
+                .POST(HttpRequest.BodyPublishers.ofFile(file));
+        if (GZIP) {
+            upload.header("Content-Encoding", "gzip");
+        }
+        long importStart = System.nanoTime();
+        HttpResponse<String> response = http.send(upload.build(), HttpResponse.BodyHandlers.ofString());
+        double importSeconds = (System.nanoTime() - importStart) / 1e9;
+        long importPeakRss = peakRssKb();
+
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode result = objectMapper.readTree(response.body()).get("result");
+        assertEquals(stats.detailLines() - stats.invalid(), result.get("saved").asLong());
+        assertEquals(stats.invalid(), result.get("invalid").asLong());
+
+        System.out.printf("importação: %.1f s, %,.0f linhas/s, pico de RSS %s%n",
+                importSeconds, stats.lines() / importSeconds, megabytes(importPeakRss));
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> pages = new ArrayList<>();
+        List<String> summaries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate start = START.plusDays(random.nextInt(DAYS - 31));
+            String period = "start=" + start + "&end=" + start.plusDays(random.nextInt(31));
+            pages.add("/sales?" + period);
+            summaries.add("/sales/summary?" + period + "&groupBy=" + (i % 2 == 0 ? "brand" : "establishment"));
+        }
+
+        System.out.printf("%-32s %10s %10s %10s %10s%n", "consulta", "p50 (ms)", "p95 (ms)", "p99 (ms)",
+                "máx (ms)");
+        print("GET /sales (3 páginas)", measure(pages, true));
+        print("GET /sales repetido (cache)", measure(pages, true));
+        print("GET /sales/summary", measure(summaries, false));
+        System.out.printf("pico de RSS no teste inteiro: %s%n", megabytes(peakRssKb()));
+    }
+
+    // Latência de cada requisição; nas páginas segue o nextCursor por mais duas.
+    private double[] measure(List<String> paths, boolean followCursor) throws IOException, InterruptedException {
+        List<Double> millis = new ArrayList<>();
+        for (String path : paths) {
+            String next = path;
+            for (int page = 0; next != null && page < (followCursor ? 3 : 1); page++) {
+                long start = System.nanoTime();
+                HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri(next)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                millis.add((System.nanoTime() - start) / 1e6);
+                assertEquals(200, response.statusCode(), response.body());
+
+                JsonNode cursor = followCursor ? objectMapper.readTree(response.body()).get("nextCursor") : null;
+                next = cursor == null || cursor.isNull()
+                        ? null
+                        : path + "&cursor=" + URLEncoder.encode(cursor.asString(), StandardCharsets.UTF_8);
+            }
+        }
+        double[] sorted = millis.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void print(String query, double[] sorted) {
+        System.out.printf("%-32s %10.2f %10.2f %10.2f %10.2f%n", query, percentile(sorted, 0.50),
+                percentile(sorted, 0.95), percentile(sorted, 0.99), sorted[sorted.length - 1]);
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * p) - 1)];
+    }
+
+    // Zera o VmHWM para que o pico medido seja o da importação (Linux >= 4.0).
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(Path.of("/proc/self/clear_refs"), "5");
+        } catch (IOException | UnsupportedOperationException e) {
+            // sem /proc: o pico fica sendo o do processo inteiro
+        }
+    }
+
+    private static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException e) {
+            // fora do Linux não há VmHWM
+        }
+        return -1;
+    }
+
+    private static String megabytes(long kb) {
+        return kb < 0 ? "n/d" : "%,d MB".formatted(kb / 1024);
+    }
+}
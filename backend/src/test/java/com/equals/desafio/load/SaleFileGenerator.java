@@ -0,0 +1,257 @@
+package com.equals.desafio.load;
+
+import com.equals.desafio.parser.SaleLayout;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gera arquivos sintéticos no layout posicional de 530 colunas: um header (tipo 0),
+ * as linhas de detalhe (tipo 1) e um trailer (tipo 9) com a quantidade de detalhes.
+ * <p>
+ * Bandeiras seguem pesos configuráveis e estabelecimentos uma distribuição de Zipf
+ * (poucos estabelecimentos concentram a maior parte das vendas). Uma fração das linhas
+ * de detalhe sai inválida, alternando data, hora e estabelecimento em branco. Os
+ * transaction codes levam o prefixo da execução, então arquivos de seeds diferentes
+ * não se repetem entre si.
+ * <p>
+ * Também roda sozinho: {@code SaleFileGenerator <arquivo> <linhas> [fração inválida]};
+ * o arquivo sai em gzip quando termina em {@code .gz}.
+ */
+public class SaleFileGenerator {
+
+    private static final int LINE_LENGTH = SaleLayout.DETAIL_MIN_LENGTH;
+    private static final DateTimeFormatter YYYYMMDD = DateTimeFormatter.BASIC_ISO_DATE;
+    // Data da venda logo após o estabelecimento (o parser usa a de EVENT_DATE).
+    private static final SaleLayout.Field SALE_DATE = new SaleLayout.Field(12, 8);
+    // Metade final do transaction code: sequência da linha; a primeira é o seed em hexa.
+    private static final SaleLayout.Field CODE_SEQUENCE = new SaleLayout.Field(
+            SaleLayout.TRANSACTION_CODE.start() + 16, 16);
+
+    private final long seed;
+    private long rows = 10_000;
+    private Map<String, Integer> brands = defaultBrands();
+    private int establishments = 1_000;
+    private double establishmentSkew = 1.0;
+    private double invalidShare = 0.0;
+    private LocalDate start = LocalDate.of(2023, 1, 1);
+    private int days = 365;
+
+    public SaleFileGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public SaleFileGenerator rows(long rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("rows não pode ser negativo.");
+        }
+        this.rows = rows;
+        return this;
+    }
+
+    /**
+     * Bandeiras e seus pesos relativos, ex.: VISA=40, MASTERCARD=35.
+     */
+    public SaleFileGenerator brands(Map<String, Integer> brands) {
+        if (brands.isEmpty() || brands.values().stream().anyMatch(weight -> weight <= 0)) {
+            throw new IllegalArgumentException("Informe ao menos uma bandeira, com pesos positivos.");
+        }
+        this.brands = new LinkedHashMap<>(brands);
+        return this;
+    }
+
+    /**
+     * Quantidade de estabelecimentos e o expoente da distribuição de Zipf:
+     * 0 é uniforme; quanto maior, mais concentrado nos primeiros.
+     */
+    public SaleFileGenerator establishments(int count, double skew) {
+        if (count <= 0 || skew < 0) {
+            throw new IllegalArgumentException("Estabelecimentos deve ser maior que zero e skew não negativo.");
+        }
+        this.establishments = count;
+        this.establishmentSkew = skew;
+        return this;
+    }
+
+    public SaleFileGenerator invalidShare(double invalidShare) {
+        if (invalidShare < 0 || invalidShare > 1) {
+            throw new IllegalArgumentException("invalidShare deve estar entre 0 e 1.");
+        }
+        this.invalidShare = invalidShare;
+        return this;
+    }
+
+    public SaleFileGenerator period(LocalDate start, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("days deve ser maior que zero.");
+        }
+        this.start = start;
+        this.days = days;
+        return this;
+    }
+
+    public Stats write(Path path, boolean gzip) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            return write(out, gzip);
+        }
+    }
+
+    /**
+     * Escreve o arquivo em {@code out}, sem fechá-lo.
+     */
+    public Stats write(OutputStream out, boolean gzip) throws IOException {
+        GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        OutputStream target = new BufferedOutputStream(zip != null ? zip : out, 256 * 1024);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] brandNames = brands.keySet().toArray(String[]::new);
+        double[] brandCumulative = cumulative(brands.values().stream().mapToDouble(Integer::doubleValue).toArray());
+        double[] establishmentCumulative = zipf(establishments, establishmentSkew);
+        String codePrefix = HexFormat.of().toHexDigits(seed);
+
+        byte[] line = new byte[LINE_LENGTH + 1];
+        line[LINE_LENGTH] = '\n';
+
+        header(line);
+        target.write(line);
+
+        String[] dates = new String[days];
+        for (int d = 0; d < days; d++) {
+            dates[d] = start.plusDays(d).format(YYYYMMDD);
+        }
+
+        long invalid = 0;
+        for (long i = 0; i < rows; i++) {
+            Arrays.fill(line, 0, LINE_LENGTH, (byte) ' ');
+            String date = dates[random.nextInt(days)];
+            int second = random.nextInt(86_400);
+            long total = 100 + (long) Math.exp(random.nextDouble() * Math.log(500_000));
+
+            put(line, SaleLayout.RECORD_TYPE, "1");
+            putDigits(line, SaleLayout.ESTABLISHMENT_CODE, 1 + pick(establishmentCumulative, random.nextDouble()));
+            put(line, SALE_DATE, date);
+            put(line, SaleLayout.EVENT_DATE, date);
+            putDigits(line, SaleLayout.EVENT_TIME, second / 3600 * 10_000 + second / 60 % 60 * 100 + second % 60);
+            put(line, SaleLayout.TRANSACTION_CODE, codePrefix);
+            putDigits(line, CODE_SEQUENCE, i);
+            putDigits(line, SaleLayout.TOTAL_AMOUNT, total);
+            putDigits(line, SaleLayout.NET_AMOUNT, total * 97 / 100);
+            put(line, SaleLayout.BRAND, brandNames[pick(brandCumulative, random.nextDouble())]);
+
+            if (invalidShare > 0 && random.nextDouble() < invalidShare) {
+                corrupt(line, invalid++);
+            }
+            target.write(line);
+        }
+
+        Arrays.fill(line, 0, LINE_LENGTH, (byte) ' ');
+        put(line, SaleLayout.RECORD_TYPE, "9");
+        putDigits(line, new SaleLayout.Field(2, 11), rows);
+        target.write(line);
+
+        target.flush();
+        if (zip != null) {
+            zip.finish();
+        }
+        return new Stats(rows + 2, rows, invalid);
+    }
+
+    private void header(byte[] line) {
+        Arrays.fill(line, 0, LINE_LENGTH, (byte) ' ');
+        put(line, SaleLayout.RECORD_TYPE, "0");
+        putDigits(line, SaleLayout.ESTABLISHMENT_CODE, 0);
+        put(line, SALE_DATE, LocalDate.now().format(YYYYMMDD));
+        put(line, SaleLayout.EVENT_DATE, start.format(YYYYMMDD));
+        put(line, new SaleLayout.Field(28, 8), start.plusDays(days - 1L).format(YYYYMMDD));
+    }
+
+    // Uma linha inválida por motivo, em rodízio: data, hora ou estabelecimento.
+    private static void corrupt(byte[] line, long index) {
+        switch ((int) (index % 3)) {
+            case 0 -> put(line, SaleLayout.EVENT_DATE, "20231345");
+            case 1 -> put(line, SaleLayout.EVENT_TIME, "256199");
+            default -> put(line, SaleLayout.ESTABLISHMENT_CODE, " ".repeat(10));
+        }
+    }
+
+    private static void put(byte[] line, SaleLayout.Field field, String value) {
+        for (int i = 0; i < field.length(); i++) {
+            line[field.offset() + i] = i < value.length() ? (byte) value.charAt(i) : (byte) ' ';
+        }
+    }
+
+    private static void putDigits(byte[] line, SaleLayout.Field field, long value) {
+        for (int i = field.end() - 1; i >= field.offset(); i--) {
+            line[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static double[] zipf(int count, double skew) {
+        double[] weights = new double[count];
+        for (int k = 0; k < count; k++) {
+            weights[k] = 1.0 / Math.pow(k + 1, skew);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double value) {
+        int index = Arrays.binarySearch(cumulative, value);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    private static Map<String, Integer> defaultBrands() {
+        Map<String, Integer> brands = new LinkedHashMap<>();
+        brands.put("VISA", 40);
+        brands.put("MASTERCARD", 35);
+        brands.put("ELO", 15);
+        brands.put("AMEX", 5);
+        brands.put("HIPERCARD", 5);
+        return brands;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: SaleFileGenerator <arquivo> <linhas> [fração inválida]");
+            System.exit(1);
+        }
+        Path path = Path.of(args[0]);
+        Stats stats = new SaleFileGenerator(System.nanoTime())
+                .rows(Long.parseLong(args[1]))
+                .invalidShare(args.length > 2 ? Double.parseDouble(args[2]) : 0.0)
+                .write(path, path.getFileName().toString().endsWith(".gz"));
+        System.out.printf("%s: %,d linhas, %,d detalhes, %,d inválidas, %,d bytes%n",
+                path, stats.lines(), stats.detailLines(), stats.invalid(), Files.size(path));
+    }
+
+    /**
+     * Contagem do arquivo gerado: linhas no total (com header e trailer), detalhes e
+     * quantos detalhes saíram inválidos de propósito.
+     */
+    public record Stats(long lines, long detailLines, long invalid) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.equals.desafio.load;
+
+import com.equals.desafio.domain.Sale;
+import com.equals.desafio.parser.SaleLayout;
+import com.equals.desafio.parser.SaleParser;
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.service.ImportListener;
+import com.equals.desafio.service.SaleImportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SaleFileGeneratorTest {
+
+    private final SaleParser parser = new SaleParser();
+
+    @Test
+    void deveGerarHeaderDetalhesETrailerNoLayoutDe530Colunas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaleFileGenerator.Stats stats = new SaleFileGenerator(42)
+                .rows(1_000)
+                .period(LocalDate.of(2024, 2, 1), 29)
+                .write(out, false);
+
+        List<String> lines = out.toString(StandardCharsets.US_ASCII).lines().toList();
+
+        assertEquals(1_002, lines.size());
+        assertEquals(new SaleFileGenerator.Stats(1_002, 1_000, 0), stats);
+        assertTrue(lines.stream().allMatch(line -> line.length() == SaleLayout.DETAIL_MIN_LENGTH));
+        assertTrue(lines.getFirst().startsWith("0"));
+        assertEquals("900000001000", lines.getLast().substring(0, 12));
+
+        List<Sale> sales = lines.subList(1, lines.size() - 1).stream().map(parser::parse).toList();
+        assertEquals(1_000, sales.stream().map(Sale::getTransactionCode).distinct().count());
+        assertTrue(sales.stream().allMatch(sale -> sale.getTransactionCode().length() == 32));
+        assertTrue(sales.stream().allMatch(sale -> !sale.getEventDate().isBefore(LocalDate.of(2024, 2, 1))
+                && !sale.getEventDate().isAfter(LocalDate.of(2024, 2, 29))));
+    }
+
+    @Test
+    void deveSeguirOsPesosDasBandeirasEConcentrarEstabelecimentos() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SaleFileGenerator(7)
+                .rows(20_000)
+                .brands(Map.of("VISA", 3, "ELO", 1))
+                .establishments(100, 1.2)
+                .write(out, false);
+
+        List<Sale> sales = out.toString(StandardCharsets.US_ASCII).lines()
+                .filter(line -> line.startsWith("1"))
+                .map(parser::parse)
+                .toList();
+
+        Map<String, Long> byBrand = sales.stream()
+                .collect(Collectors.groupingBy(Sale::getBrand, Collectors.counting()));
+        assertEquals(2, byBrand.size());
+        assertEquals(0.75, byBrand.get("VISA") / 20_000.0, 0.02);
+
+        Map<String, Long> byEstablishment = sales.stream()
+                .collect(Collectors.groupingBy(Sale::getEstablishmentCode, Collectors.counting()));
+        long top = byEstablishment.values().stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertEquals(byEstablishment.get("0000000001"), top);
+        assertTrue(top > 20_000 / 100 * 10, "o primeiro estabelecimento deveria concentrar as vendas: " + top);
+    }
+
+    @Test
+    void deveGerarAFracaoDeLinhasInvalidasQueAImportacaoRejeita(@TempDir Path dir) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaleFileGenerator.Stats stats = new SaleFileGenerator(3)
+                .rows(10_000)
+                .invalidShare(0.05)
+                .write(out, false);
+
+        assertEquals(0.05, stats.invalid() / 10_000.0, 0.01);
+
+        SaleRepository repository = mock(SaleRepository.class, withSettings().stubOnly());
+        when(repository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        SaleImportService service = importService().repository(repository).build();
+
+        SaleImportService.ImportResult result = service.importLocalFile(
+                Files.write(dir.resolve("sintetico.txt"), out.toByteArray()), null, ImportListener.NONE);
+
+        assertEquals(stats.lines(), result.totalLines());
+        assertEquals(stats.detailLines(), result.detailLines());
+        assertEquals(stats.invalid(), result.invalid());
+        assertEquals(stats.detailLines() - stats.invalid(), result.saved());
+        assertEquals(2, result.ignored());
+    }
+
+    @Test
+    void deveGerarOMesmoConteudoComESemGzip() throws Exception {
+        Function<Boolean, byte[]> generate = gzip -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                new SaleFileGenerator(11).rows(2_000).invalidShare(0.1).write(out, gzip);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return out.toByteArray();
+        };
+
+        byte[] plain = generate.apply(false);
+        byte[] compressed = generate.apply(true);
+
+        assertTrue(compressed.length < plain.length / 3);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+    }
+}
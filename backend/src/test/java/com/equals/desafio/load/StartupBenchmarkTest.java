@@ -0,0 +1,160 @@
+package com.equals.desafio.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Tempo até a primeira resposta 200 de GET /sales, medido de fora: sobe o jar empacotado
+ * num processo novo, a cada rodada, e consulta a porta até responder. Compara a subida
+ * padrão, o profile prod (sem validação do esquema pelo Hibernate, beans sob demanda) e o
+ * profile prod com o arquivo CDS gerado como no Dockerfile (jar extraído e rodada de
+ * treino sem banco).
+ * <p>
+ * Usa o jar de target/ (rode {@code mvn package -DskipTests} antes) e o banco configurado
+ * em application.properties ou nas variáveis SPRING_DATASOURCE_*.
+ * <p>
+ * Roda só com o profile benchmark: {@code mvn test -Pbenchmark -Dtest=StartupBenchmarkTest}.
+ * Parâmetro: -Dstartup.runs (padrão 3 subidas por variante).
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration TIMEOUT = Duration.ofMinutes(3);
+    private static final String JAVA = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void deveMedirTempoAtePrimeiraRequisicao() throws Exception {
+        Path app = extract(packagedJar());
+        Path archive = app.resolveSibling("app.jsa");
+        train(app, archive);
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("padrão", List.of());
+        variants.put("prod", List.of("-Dspring.profiles.active=prod"));
+        variants.put("prod + CDS", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.profiles.active=prod"));
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (int run = 0; run < RUNS; run++) {
+            // Intercala as variantes para que cache de disco e banco valham igual para todas.
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                double[] millis = results.computeIfAbsent(variant.getKey(), key -> new double[RUNS]);
+                millis[run] = timeToFirstRequest(app, variant.getValue());
+            }
+        }
+
+        System.out.printf("%n%-16s %12s %12s %12s%n", "subida", "p50 (ms)", "mín (ms)", "máx (ms)");
+        results.forEach((name, millis) -> {
+            Arrays.sort(millis);
+            System.out.printf("%-16s %12.0f %12.0f %12.0f%n", name, millis[millis.length / 2], millis[0],
+                    millis[millis.length - 1]);
+        });
+    }
+
+    private double timeToFirstRequest(Path app, List<String> jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", app.toString(), "--server.port=" + port));
+        Path log = dir.resolve("app-" + port + ".log");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/sales")).build();
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    fail("A aplicação terminou antes de responder:\n" + tail(log));
+                }
+                try {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1e6;
+                    }
+                } catch (ConnectException e) {
+                    // porta ainda fechada
+                }
+                Thread.sleep(20);
+            }
+            return fail("Sem resposta de /sales em " + TIMEOUT + ":\n" + tail(log));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("target"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Jar não encontrado em target/: "
+                            + "rode mvn package -DskipTests antes."));
+        }
+    }
+
+    // Mesmos passos do Dockerfile: jar extraído com lib/ ao lado, exigido pelo CDS.
+    private Path extract(Path jar) throws Exception {
+        Path extracted = dir.resolve("extracted");
+        run(JAVA, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination", extracted.toString());
+        try (Stream<Path> files = Files.list(extracted)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst().orElseThrow();
+        }
+    }
+
+    private void train(Path app, Path archive) throws Exception {
+        run(JAVA, "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                "-Dspring.profiles.active=prod", "-Dspring.flyway.enabled=false", "-Dapp.totals-index.enabled=false",
+                "-jar", app.toString());
+        assertTrue(Files.size(archive) > 0);
+    }
+
+    private void run(String... command) throws Exception {
+        Path log = Files.createTempFile(dir, "run-", ".log");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        assertEquals(0, process.waitFor(), () -> String.join(" ", command) + "\n" + tail(log));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String tail(Path log) {
+        try {
+            List<String> lines = Files.readAllLines(log);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 30), lines.size()));
+        } catch (IOException e) {
+            return "(sem log)";
+        }
+    }
+}
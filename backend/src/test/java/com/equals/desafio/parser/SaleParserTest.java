@@ -7,15 +7,18 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SaleParserTest {
 
     private final SaleParser parser = new SaleParser();
+    private final SaleRecord reused = new SaleRecord();
 
     @Test
     void deveParsearLinhaDetalheTipo1_comCamposPrincipais() throws Exception {
@@ -46,6 +49,83 @@ class SaleParserTest {
         assertTrue(ex.getMessage().toLowerCase().contains("tipo 1"));
     }
 
+    @Test
+    void deveParsearBytesDoRegistroIgualAoParseDeString() throws Exception {
+        String line = readDetailLineByContains(
+                "processoSeletivoEquals.txt",
+                "10203040506070809010203040506070");
+
+        byte[] bytes = ("xx" + line + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer slice = ByteBuffer.wrap(bytes, 2, line.length());
+
+        assertSameSale(parser.parse(line), parser.parse(slice));
+        assertEquals(2, slice.position());
+        assertEquals(LocalTime.of(13, 18, 34), parser.parse(slice.asReadOnlyBuffer()).getEventTime());
+    }
+
+    @Test
+    void fuzz_parseDeBytesDeveSerEquivalenteAoParseDeString() throws Exception {
+        String base = readDetailLineByContains(
+                "processoSeletivoEquals.txt",
+                "10203040506070809010203040506070");
+
+        String noise = " 0123456789ABCXYZ-.,\t\u0001\"";
+        Random random = new Random(530L);
+
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = base.toCharArray();
+
+            int mutations = random.nextInt(12);
+            for (int m = 0; m < mutations; m++) {
+                int pos = random.nextInt(SaleLayout.BRAND.end());
+                chars[pos] = noise.charAt(random.nextInt(noise.length()));
+            }
+            if (random.nextInt(10) == 0) {
+                chars[0] = '0';
+            }
+            if (random.nextInt(20) == 0) {
+                chars[random.nextInt(SaleLayout.BRAND.end())] = 'é';
+            }
+
+            String line = new String(chars);
+            if (random.nextInt(8) == 0) {
+                line = line.substring(0, random.nextInt(line.length() + 1));
+            }
+
+            assertEquivalent(line);
+        }
+    }
+
+    private void assertEquivalent(String line) {
+        ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+
+        Sale expected;
+        try {
+            expected = parser.parse(line);
+        } catch (RuntimeException e) {
+            RuntimeException actual = assertThrows(RuntimeException.class, () -> parser.parse(bytes), line);
+            assertEquals(e.getClass(), actual.getClass(), line);
+            assertEquals(e.getMessage(), actual.getMessage(), line);
+            RuntimeException viaRecord = assertThrows(RuntimeException.class,
+                    () -> parser.parse(reused.wrap(bytes)), line);
+            assertEquals(e.getMessage(), viaRecord.getMessage(), line);
+            return;
+        }
+
+        assertSameSale(expected, parser.parse(bytes));
+        assertSameSale(expected, parser.parse(reused.wrap(bytes)));
+    }
+
+    private void assertSameSale(Sale expected, Sale actual) {
+        assertEquals(expected.getEstablishmentCode(), actual.getEstablishmentCode());
+        assertEquals(expected.getEventDate(), actual.getEventDate());
+        assertEquals(expected.getEventTime(), actual.getEventTime());
+        assertEquals(expected.getBrand(), actual.getBrand());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getTransactionCode(), actual.getTransactionCode());
+        assertEquals(expected.getNetAmount(), actual.getNetAmount());
+    }
+
     private String readDetailLineByContains(String resourceName, String mustContain) throws Exception {
         InputStream is = getClass().getClassLoader().getResourceAsStream(resourceName);
         assertNotNull(is, "Arquivo não encontrado em src/test/resources: " + resourceName);
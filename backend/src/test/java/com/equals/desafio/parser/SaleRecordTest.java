@@ -0,0 +1,87 @@
+package com.equals.desafio.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleRecordTest {
+
+    @Test
+    void deveCobrirOsBytesDoDetalheEmOrdemESemBuracos() {
+        int next = 1;
+        for (int i = 0; i < SaleLayout.DETAIL_FIELDS.size(); i++) {
+            SaleLayout.Field field = SaleLayout.DETAIL_FIELDS.get(i);
+            assertEquals(i, field.index(), field.name());
+            assertEquals(next, field.start(), field.name());
+            assertTrue(SaleLayout.isDetailField(field), field.name());
+            next = field.start() + field.length();
+        }
+        assertEquals(SaleLayout.DETAIL_MIN_LENGTH + 1, next);
+        assertFalse(SaleLayout.isDetailField(new SaleLayout.Field(20, 8)));
+    }
+
+    @Test
+    void deveDecodificarCamposAlemDosGravados() throws Exception {
+        SaleRecord record = new SaleRecord().wrap(ByteBuffer.wrap(
+                detailLine("11122233344455566677788899911120").getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(2, record.installment());
+        assertEquals(2, record.installmentCount());
+        assertEquals(LocalDate.of(2018, 11, 25), record.paymentDate());
+        assertEquals(new BigDecimal("129.90"), record.grossAmount());
+        assertEquals(new BigDecimal("3.51"), record.feeAmount());
+        assertEquals(new BigDecimal("126.39"), record.netAmount());
+        assertEquals(new BigDecimal("63.19"), record.amount(SaleLayout.INSTALLMENT_AMOUNT));
+        assertEquals("554067", record.cardBin());
+        assertEquals("1729", record.cardLastDigits());
+        assertEquals("1003410575", record.text(SaleLayout.NSU));
+        assertEquals("", record.text(SaleLayout.DETAIL_FIELDS.getLast()));
+    }
+
+    @Test
+    void deveDecodificarCadaCampoSoNoPrimeiroAcessoAteONovoWrap() throws Exception {
+        byte[] bytes = detailLine("10203040506070809010203040506070").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        SaleRecord record = new SaleRecord().wrap(buffer);
+
+        assertEquals("MASTERCARD", record.brand());
+
+        // Bytes alterados depois do primeiro acesso não mudam o valor guardado...
+        byte[] visa = "VISA      ".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(visa, 0, bytes, SaleLayout.BRAND.offset(), visa.length);
+        bytes[SaleLayout.EVENT_DATE.offset() + 4] = '1';
+        bytes[SaleLayout.EVENT_DATE.offset() + 5] = '3';
+        assertEquals("MASTERCARD", record.brand());
+
+        // ...mas um campo ainda não lido é decodificado dos bytes atuais.
+        assertThrows(DateTimeParseException.class, record::eventDate);
+
+        record.wrap(buffer);
+        assertEquals("VISA", record.brand());
+    }
+
+    @Test
+    void deveRejeitarLeituraComTipoDiferenteDoDaTabela() throws Exception {
+        SaleRecord record = new SaleRecord().wrap(ByteBuffer.wrap(
+                detailLine("10203040506070809010203040506070").getBytes(StandardCharsets.US_ASCII)));
+
+        assertThrows(IllegalArgumentException.class, () -> record.amount(SaleLayout.BRAND));
+        assertEquals("20180925", record.text(new SaleLayout.Field(20, 8)));
+    }
+
+    private String detailLine(String mustContain) throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1") && l.contains(mustContain))
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+}
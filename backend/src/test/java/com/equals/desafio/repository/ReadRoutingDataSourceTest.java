@@ -0,0 +1,197 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.repository.ReadRoutingDataSource.Replica;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReadRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Replica> replicas = new ArrayList<>();
+    private ReadRoutingDataSource routing;
+
+    @AfterEach
+    void close() {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    @Test
+    void deveMandarLeiturasParaAReplicaComMenosConexoesEmUso() throws Exception {
+        Node primary = new Node(0);
+        Node a = new Node(0);
+        Node b = new Node(0);
+        routing = routing(primary, true, a, b);
+
+        Connection first = routing.getConnection();
+        Connection second = routing.getConnection();
+
+        verify(a.dataSource).getConnection();
+        verify(b.dataSource).getConnection();
+        verify(a.connection).setReadOnly(true);
+        verify(b.connection).setReadOnly(true);
+        verify(primary.dataSource, never()).getConnection();
+        assertEquals(1, reads("replica-0"));
+        assertEquals(1, reads("replica-1"));
+
+        // A primeira continua em uso: mesmo sendo a vez dela no rodízio, a leitura vai para a outra.
+        second.close();
+        routing.getConnection();
+        assertEquals(1, reads("replica-0"));
+        assertEquals(2, reads("replica-1"));
+        first.close();
+    }
+
+    @Test
+    void deveTirarReplicaComFalhaDoRodizioEUsarOPrimarioSemNenhuma() throws Exception {
+        Node primary = new Node(0);
+        Node a = new Node(0);
+        Node b = new Node(0);
+        routing = routing(primary, true, a, b);
+        when(a.dataSource.getConnection()).thenThrow(new SQLException("fora do ar"));
+
+        routing.getConnection();
+        routing.getConnection();
+
+        assertFalse(replicas.get(0).isHealthy());
+        verify(a.dataSource, times(1)).getConnection();
+        verify(b.dataSource, times(2)).getConnection();
+
+        when(b.dataSource.getConnection()).thenThrow(new SQLException("fora do ar"));
+        routing.getConnection();
+
+        verify(primary.connection).setReadOnly(true);
+        assertEquals(1, reads("primary"));
+
+        // A verificação periódica devolve ao rodízio a réplica que voltou a responder.
+        doReturn(a.connection).when(a.dataSource).getConnection();
+        routing.check();
+        assertTrue(replicas.get(0).isHealthy());
+        assertFalse(replicas.get(1).isHealthy());
+        routing.getConnection();
+        assertEquals(1, reads("replica-0"));
+    }
+
+    @Test
+    void deveManterNoRodizioAReplicaComPoolEsgotado() throws Exception {
+        Node primary = new Node(0);
+        Node a = new Node(0);
+        Node b = new Node(0);
+        routing = routing(primary, true, a, b);
+        // Como o Hikari responde quando não há conexão livre no prazo: sem causa.
+        when(a.dataSource.getConnection()).thenThrow(new SQLTransientConnectionException("sem conexão livre"));
+
+        routing.getConnection();
+        routing.getConnection();
+
+        assertTrue(replicas.get(0).isHealthy());
+        assertEquals(2, reads("replica-1"));
+        routing.check();
+        assertTrue(replicas.get(0).isHealthy());
+
+        // Banco fora do ar: o Hikari devolve a mesma exceção, com a falha do driver como causa.
+        doThrow(new SQLTransientConnectionException("tempo esgotado", "08001", new SQLException("recusada")))
+                .when(a.dataSource).getConnection();
+        routing.getConnection();
+        assertFalse(replicas.get(0).isHealthy());
+    }
+
+    @Test
+    void deveLerDoPrimarioAteAReplicaAlcancarOCommit() throws Exception {
+        Node primary = new Node(100);
+        Node replica = new Node(50);
+        routing = routing(primary, true, replica);
+
+        try (Connection connection = routing.writer().getConnection()) {
+            connection.commit();
+        }
+        routing.getConnection().close();
+        assertEquals(1, reads("primary"));
+        verify(replica.connection).close();
+
+        replica.position.set(120);
+        routing.getConnection().close();
+        assertEquals(1, reads("replica-0"));
+    }
+
+    @Test
+    void deveGuardarAPosicaoDeGravacoesEmAutocommitAoDevolverAConexao() throws Exception {
+        Node primary = new Node(100);
+        Node replica = new Node(50);
+        routing = routing(primary, true, replica);
+        when(primary.connection.getAutoCommit()).thenReturn(true);
+
+        try (Connection connection = routing.writer().getConnection()) {
+            connection.prepareStatement("DELETE FROM sales WHERE id = ?");
+        }
+        routing.getConnection().close();
+
+        verify(primary.connection, never()).commit();
+        assertEquals(1, reads("primary"));
+    }
+
+    @Test
+    void deveIgnorarAtrasoDaReplicaSemReadYourWrites() throws Exception {
+        Node primary = new Node(100);
+        Node replica = new Node(50);
+        routing = routing(primary, false, replica);
+
+        try (Connection connection = routing.writer().getConnection()) {
+            connection.commit();
+        }
+        routing.getConnection().close();
+
+        assertEquals(1, reads("replica-0"));
+        verify(primary.connection, never()).createStatement();
+    }
+
+    private ReadRoutingDataSource routing(Node primary, boolean readYourWrites, Node... replicas) {
+        for (int i = 0; i < replicas.length; i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas[i].dataSource));
+        }
+        // Intervalo longo: a verificação de saúde só roda quando o teste chama check().
+        return new ReadRoutingDataSource(primary.dataSource, this.replicas, readYourWrites, Duration.ofHours(1),
+                registry);
+    }
+
+    private double reads(String target) {
+        return registry.get("datasource.reads").tag("target", target).counter().count();
+    }
+
+    /**
+     * Banco de mentira: uma conexão que responde às consultas de posição do WAL.
+     */
+    private static final class Node {
+        final AtomicLong position;
+        final DataSource dataSource = mock(DataSource.class);
+        final Connection connection = mock(Connection.class);
+
+        Node(long position) throws SQLException {
+            this.position = new AtomicLong(position);
+            Statement statement = mock(Statement.class);
+            ResultSet rs = mock(ResultSet.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(rs);
+            when(rs.next()).thenReturn(true);
+            when(rs.getLong(1)).thenAnswer(invocation -> this.position.get());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleCsvEncoderTest {
+
+    @Test
+    void deveCodificarVendaNaOrdemDasColunasDoCopy() {
+        Sale sale = new Sale();
+        sale.setEstablishmentCode("1234567891");
+        sale.setEventDate(LocalDate.of(2018, 9, 25));
+        sale.setEventTime(LocalTime.of(13, 18, 34));
+        sale.setBrand("MASTER\"CARD");
+        sale.setTotalAmount(new BigDecimal("101.00"));
+        sale.setTransactionCode("A".repeat(32));
+        sale.setNetAmount(new BigDecimal("0.98"));
+
+        StringBuilder out = new StringBuilder();
+        SaleCsvEncoder.append(out, 42, sale);
+
+        assertEquals("42,\"1234567891\",2018-09-25,13:18:34,\"MASTER\"\"CARD\",101.00,\""
+                + "A".repeat(32) + "\",0.98\n", out.toString());
+    }
+
+    @Test
+    void deveGravarNullComoCampoVazioSemAspas() {
+        Sale sale = new Sale();
+        sale.setEstablishmentCode("1234567891");
+        sale.setEventDate(LocalDate.of(2018, 9, 25));
+        sale.setBrand("");
+        sale.setTotalAmount(BigDecimal.ZERO);
+        sale.setTransactionCode("B".repeat(32));
+
+        StringBuilder out = new StringBuilder();
+        SaleCsvEncoder.append(out, 1, sale);
+
+        assertEquals("1,\"1234567891\",2018-09-25,,\"\",0,\"" + "B".repeat(32) + "\",\n", out.toString());
+    }
+}
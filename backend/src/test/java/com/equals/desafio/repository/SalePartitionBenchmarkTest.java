@@ -0,0 +1,190 @@
+package com.equals.desafio.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara consultas por período em sales sem índices de data, com os índices e
+ * particionada por mês (layout da migration V2), no mesmo volume de dados.
+ * Cria as tabelas num schema próprio (sales_benchmark) e o remove no fim.
+ * <p>
+ * Roda só com o profile benchmark: {@code mvn test -Pbenchmark}. Volume e banco vêm de
+ * -Dbenchmark.rows (padrão 10 milhões) e -Dbenchmark.url.
+ */
+@Tag("benchmark")
+class SalePartitionBenchmarkTest {
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 10_000_000L);
+    private static final String URL = System.getProperty(
+            "benchmark.url", "jdbc:postgresql://localhost:5433/equals");
+    private static final int DAYS = 4 * 365;
+    private static final int RUNS = 15;
+
+    private static final String COLUMNS = "id bigint NOT NULL, brand varchar(30), "
+            + "establishment_code varchar(10) NOT NULL, event_date date NOT NULL, event_time time, "
+            + "net_amount numeric(19, 2), total_amount numeric(19, 2) NOT NULL, transaction_code varchar(32)";
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void createTables() throws SQLException {
+        connection = DriverManager.getConnection(URL, "equals", "equals");
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS sales_benchmark CASCADE");
+            st.execute("CREATE SCHEMA sales_benchmark");
+            st.execute("SET search_path TO sales_benchmark");
+
+            timed("carga sem índices de data", () -> {
+                st.execute("CREATE TABLE flat (" + COLUMNS + ", PRIMARY KEY (id))");
+                st.execute("INSERT INTO flat SELECT g, "
+                        + "(ARRAY['VISA', 'MASTERCARD', 'ELO', 'AMEX', 'HIPERCARD'])[g % 5 + 1], "
+                        + "lpad((g * 7919 % 1000)::text, 10, '0'), DATE '2021-01-01' + (g % " + DAYS + ")::int, "
+                        + "TIME '00:00' + (g % 86400) * INTERVAL '1 second', (g % 10000) / 100.0 * 0.97, "
+                        + "(g % 10000) / 100.0, lpad(g::text, 32, '0') "
+                        + "FROM generate_series(1::bigint, " + ROWS + ") g");
+                st.execute("ANALYZE flat");
+            });
+
+            timed("cópia com índices de data", () -> {
+                st.execute("CREATE TABLE indexed (" + COLUMNS + ", PRIMARY KEY (id))");
+                st.execute("INSERT INTO indexed SELECT * FROM flat");
+                st.execute("CREATE INDEX ON indexed (event_date, id)");
+                st.execute("CREATE INDEX ON indexed (establishment_code, event_date)");
+                st.execute("ANALYZE indexed");
+            });
+
+            timed("cópia particionada por mês", () -> {
+                st.execute("CREATE TABLE partitioned (" + COLUMNS + ", PRIMARY KEY (id, event_date)) "
+                        + "PARTITION BY RANGE (event_date)");
+                st.execute("CREATE INDEX ON partitioned (event_date, id)");
+                st.execute("CREATE INDEX ON partitioned (establishment_code, event_date)");
+                st.execute("DO $$ DECLARE m date; BEGIN "
+                        + "FOR m IN SELECT generate_series(DATE '2021-01-01', DATE '2021-01-01' + " + DAYS
+                        + ", INTERVAL '1 month')::date LOOP "
+                        + "EXECUTE format('CREATE TABLE %I PARTITION OF partitioned FOR VALUES FROM (%L) TO (%L)', "
+                        + "'partitioned_' || to_char(m, 'YYYY_MM'), m, (m + INTERVAL '1 month')::date); "
+                        + "END LOOP; END $$");
+                st.execute("INSERT INTO partitioned SELECT * FROM flat");
+                st.execute("ANALYZE partitioned");
+            });
+        }
+    }
+
+    @AfterAll
+    static void dropTables() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS sales_benchmark CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void deveMedirConsultasPorPeriodoComIndicesEParticoes() throws SQLException {
+        String page = "SELECT * FROM %s WHERE event_date BETWEEN DATE '2023-03-01' AND DATE '2023-03-31' "
+                + "AND (event_date, id) > (DATE '2023-03-10', 0) ORDER BY event_date, id LIMIT 100";
+        String month = "SELECT count(*), sum(total_amount) FROM %s "
+                + "WHERE event_date BETWEEN DATE '2023-03-01' AND DATE '2023-03-31'";
+        String establishment = "SELECT * FROM %s WHERE establishment_code = '0000000042' "
+                + "AND event_date BETWEEN DATE '2023-03-01' AND DATE '2023-03-31'";
+        String quarter = "SELECT establishment_code, count(*), sum(total_amount) FROM %s "
+                + "WHERE event_date BETWEEN DATE '2023-01-01' AND DATE '2023-03-31' GROUP BY 1";
+
+        System.out.printf("%n%,d vendas, mediana de %d execuções (ms)%n", ROWS, RUNS);
+        System.out.printf("%-34s %12s %12s %12s%n", "consulta", "sem índice", "indexada", "particionada");
+        for (String[] query : List.of(
+                new String[] {"página de 100 no mês (keyset)", page},
+                new String[] {"total do mês", month},
+                new String[] {"estabelecimento no mês", establishment},
+                new String[] {"trimestre por estabelecimento", quarter})) {
+            System.out.printf("%-34s %12.2f %12.2f %12.2f%n", query[0],
+                    median(query[1].formatted("flat")),
+                    median(query[1].formatted("indexed")),
+                    median(query[1].formatted("partitioned")));
+        }
+
+        // Remover um mês antigo: DELETE das linhas x DETACH + DROP da partição.
+        // Rodam em transações desfeitas no fim para não alterar as tabelas.
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            long start = System.nanoTime();
+            st.execute("DELETE FROM indexed WHERE event_date BETWEEN DATE '2021-01-01' AND DATE '2021-01-31'");
+            double delete = (System.nanoTime() - start) / 1e6;
+            connection.rollback();
+
+            start = System.nanoTime();
+            st.execute("ALTER TABLE partitioned DETACH PARTITION partitioned_2021_01");
+            st.execute("DROP TABLE partitioned_2021_01");
+            double detach = (System.nanoTime() - start) / 1e6;
+            connection.rollback();
+
+            System.out.printf("%-34s %12s %12.2f %12.2f%n", "remover um mês", "-", delete, detach);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        String plan = explain(month.formatted("partitioned"));
+        assertTrue(plan.contains("partitioned_2023_03"), plan);
+        assertFalse(plan.contains("partitioned_2023_02") || plan.contains("partitioned_2023_04"), plan);
+    }
+
+    private static double median(String sql) throws SQLException {
+        double[] millis = new double[RUNS];
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            drain(ps); // aquece cache e plano
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                drain(ps);
+                millis[i] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+
+    private static void drain(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rs.getObject(1);
+            }
+        }
+    }
+
+    private static String explain(String sql) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                lines.add(rs.getString(1));
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    private static void timed(String step, SqlStep action) throws SQLException {
+        long start = System.nanoTime();
+        action.run();
+        System.out.printf("%s: %.1f s%n", step, (System.nanoTime() - start) / 1e9);
+    }
+
+    private interface SqlStep {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,152 @@
+package com.equals.desafio.repository;
+
+import com.equals.desafio.domain.Sale;
+import com.equals.desafio.domain.SaleView;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compara a leitura de GET /sales com entidades gerenciadas (caminho antigo: Sale numa
+ * transação somente leitura) e com o record SaleView, percorrendo por keyset um período
+ * de ~100 mil vendas do banco local em páginas de 1000. Mede alocação na thread e
+ * latência por página.
+ * <p>
+ * Roda só com o profile benchmark: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SaleReadPathBenchmarkTest {
+
+    private static final int RANGE_ROWS = 100_000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int WARMUP_WALKS = 3;
+    private static final int WALKS = 10;
+
+    private static final String ENTITY_PAGE_JPQL = "select s from Sale s where s.eventDate between :start and :end "
+            + "and (s.eventDate, s.id) > (:afterDate, :afterId) order by s.eventDate, s.id";
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void deveCompararEntidadesComProjecaoNaLeituraPaginada() {
+        LocalDate start = jdbcTemplate.queryForObject("SELECT min(event_date) FROM sales", LocalDate.class);
+        assumeTrue(start != null, "Sem vendas no banco local.");
+        // Último dia em que o acumulado desde start alcança RANGE_ROWS vendas.
+        LocalDate end = jdbcTemplate.queryForObject("SELECT coalesce(min(event_date), max(event_date)) FROM ("
+                + "SELECT event_date, sum(count(*)) OVER (ORDER BY event_date) AS total "
+                + "FROM sales GROUP BY event_date) d WHERE total >= ?", LocalDate.class, RANGE_ROWS);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Function<Position, Page> entities = position -> readOnly.execute(status -> {
+            List<Sale> sales = entityManager.createQuery(ENTITY_PAGE_JPQL, Sale.class)
+                    .setParameter("start", start)
+                    .setParameter("end", end)
+                    .setParameter("afterDate", position.eventDate())
+                    .setParameter("afterId", position.id())
+                    .setMaxResults(PAGE_SIZE + 1)
+                    .getResultList();
+            Sale last = sales.get(Math.min(sales.size(), PAGE_SIZE) - 1);
+            return new Page(Math.min(sales.size(), PAGE_SIZE), sales.size() > PAGE_SIZE,
+                    new Position(last.getEventDate(), last.getId()));
+        });
+
+        Function<Position, Page> views = position -> {
+            List<SaleView> sales = saleRepository.findPageAfter(
+                    start, end, position.eventDate(), position.id(), Limit.of(PAGE_SIZE + 1));
+            SaleView last = sales.get(Math.min(sales.size(), PAGE_SIZE) - 1);
+            return new Page(Math.min(sales.size(), PAGE_SIZE), sales.size() > PAGE_SIZE,
+                    new Position(last.eventDate(), last.id()));
+        };
+
+        Result entityResult = measure(start, entities);
+        Result viewResult = measure(start, views);
+        assertEquals(entityResult.rows(), viewResult.rows());
+
+        System.out.printf("%n%s a %s: %,d vendas, páginas de %d, %d passadas%n",
+                start, end, viewResult.rows(), PAGE_SIZE, WALKS);
+        System.out.printf("%-22s %14s %10s %10s %10s%n", "caminho", "alocado/venda", "p50 (ms)", "p99 (ms)",
+                "total (ms)");
+        print("entidade Sale", entityResult);
+        print("record SaleView", viewResult);
+    }
+
+    private static Result measure(LocalDate start, Function<Position, Page> reader) {
+        for (int i = 0; i < WARMUP_WALKS; i++) {
+            walk(start, reader, new ArrayList<>());
+        }
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        List<Double> pageMillis = new ArrayList<>();
+        long rows = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < WALKS; i++) {
+            rows = walk(start, reader, pageMillis);
+        }
+        double totalMillis = (System.nanoTime() - startNanos) / 1e6 / WALKS;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        double[] sorted = pageMillis.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(sorted);
+        return new Result(rows, (double) allocated / WALKS / rows,
+                sorted[sorted.length / 2], sorted[(int) Math.ceil(sorted.length * 0.99) - 1], totalMillis);
+    }
+
+    private static long walk(LocalDate start, Function<Position, Page> reader, List<Double> pageMillis) {
+        Position position = new Position(start, 0);
+        long rows = 0;
+        Page page;
+        do {
+            long startNanos = System.nanoTime();
+            page = reader.apply(position);
+            pageMillis.add((System.nanoTime() - startNanos) / 1e6);
+            rows += page.rows();
+            position = page.last();
+        } while (page.hasNext());
+        return rows;
+    }
+
+    private static void print(String path, Result result) {
+        System.out.printf("%-22s %12.0f B %10.2f %10.2f %10.1f%n", path, result.bytesPerRow(),
+                result.p50(), result.p99(), result.totalMillis());
+    }
+
+    private record Position(LocalDate eventDate, long id) {
+    }
+
+    private record Page(int rows, boolean hasNext, Position last) {
+    }
+
+    private record Result(long rows, double bytesPerRow, double p50, double p99, double totalMillis) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.equals.desafio.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleSummaryReaderTest {
+
+    @Test
+    void deveAgruparSomenteAsDimensoesPedidas() {
+        String sql = SaleSummaryReader.buildSql(SaleSummaryReader.Period.MONTH, false, true);
+
+        assertTrue(sql.startsWith("SELECT date_trunc('month', event_date)::date AS period, "
+                + "NULL AS establishment_code, NULLIF(brand, '') AS brand, "));
+        assertTrue(sql.contains("WHERE event_date BETWEEN ? AND ? GROUP BY 1, 2, 3"));
+    }
+
+    @Test
+    void deveGerarTotalUnicoSemDimensoes() {
+        String sql = SaleSummaryReader.buildSql(null, false, false);
+
+        assertTrue(sql.startsWith("SELECT NULL::date AS period, NULL AS establishment_code, NULL AS brand, "));
+        assertFalse(sql.contains("date_trunc"));
+    }
+}
@@ -0,0 +1,181 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.repository.SaleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImportJobServiceTest {
+
+    @Test
+    void deveRetornarJobImediatamente_eExporAndamentoAteConcluir() throws Exception {
+        SaleImportService importService = mock(SaleImportService.class);
+        ImportJobService jobs = jobs(importService, new ImportProperties());
+
+        CountDownLatch progressed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Path> importedPath = new AtomicReference<>();
+        SaleImportService.ImportResult result = new SaleImportService.ImportResult(3, 2, 2, 1, 0, 0, List.of());
+
+        when(importService.importLocalFile(any(Path.class), eq(ImportWriteMode.COPY), any(ImportListener.class)))
+                .thenAnswer(invocation -> {
+                    Path path = invocation.getArgument(0);
+                    importedPath.set(path);
+                    assertEquals("0H\n1A\n1B\n", Files.readString(path));
+
+                    ImportListener listener = invocation.getArgument(2);
+                    listener.onProgress(2, 6, 1, 0);
+                    progressed.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return result;
+                });
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "job.txt",
+                "text/plain",
+                "0H\n1A\n1B\n".getBytes(StandardCharsets.UTF_8));
+
+        ImportJob job = jobs.submitUpload(file, ImportWriteMode.COPY);
+        assertSame(job, jobs.find(job.getId()).orElseThrow());
+
+        assertTrue(progressed.await(5, TimeUnit.SECONDS));
+        ImportJob.ImportJobStatus running = job.snapshot();
+        assertEquals(ImportJob.Status.RUNNING, running.status());
+        assertEquals(2, running.linesRead());
+        assertEquals(1, running.saved());
+        assertEquals(9, running.totalBytes());
+        assertNotNull(running.etaSeconds());
+
+        release.countDown();
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(20);
+        }
+
+        ImportJob.ImportJobStatus done = job.snapshot();
+        assertEquals(ImportJob.Status.COMPLETED, done.status());
+        assertEquals(result, done.result());
+        assertFalse(Files.exists(importedPath.get()), "arquivo temporário deve ser removido");
+    }
+
+    @Test
+    void deveMarcarJobComoFalhoQuandoImportacaoLancaErro() throws Exception {
+        SaleImportService importService = mock(SaleImportService.class);
+        ImportJobService jobs = jobs(importService, new ImportProperties());
+
+        when(importService.importLocalFile(any(Path.class), any(), any(ImportListener.class)))
+                .thenThrow(new RuntimeException("banco fora do ar"));
+
+        ImportJob job = jobs.submitUpload(
+                new MockMultipartFile("file", "x.txt", "text/plain", "1A\n".getBytes(StandardCharsets.UTF_8)), null);
+
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(ImportJob.Status.FAILED, job.snapshot().status());
+        assertEquals("banco fora do ar", job.snapshot().error());
+    }
+
+    @Test
+    void deveTerminarComContadoresDoResultado_eDescartarJobVencidoSemNovaImportacao() throws Exception {
+        SaleImportService importService = mock(SaleImportService.class);
+        ImportProperties properties = new ImportProperties();
+        properties.setJobRetention(Duration.ofMillis(1));
+        ImportJobService jobs = jobs(importService, properties);
+
+        // Sem onProgress: o resultado de um arquivo já importado não passa pelas linhas.
+        SaleImportService.ImportResult result = new SaleImportService.ImportResult(7, 6, 5, 1, 1, 0, List.of());
+        when(importService.importLocalFile(any(Path.class), any(), any(ImportListener.class))).thenReturn(result);
+
+        ImportJob job = jobs.submitUpload(
+                new MockMultipartFile("file", "x.txt", "text/plain", "1A\n".getBytes(StandardCharsets.UTF_8)), null);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(20);
+        }
+
+        ImportJob.ImportJobStatus done = job.snapshot();
+        assertEquals(ImportJob.Status.COMPLETED, done.status());
+        assertEquals(7, done.linesRead());
+        assertEquals(5, done.saved());
+        assertEquals(1, done.invalid());
+
+        for (int i = 0; i < 150 && jobs.find(job.getId()).isPresent(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(jobs.find(job.getId()).isEmpty(), "job vencido deve sair sem depender de outra importação");
+    }
+
+    @Test
+    void deveImportarCorpoCruEGzipComMesmoResultadoDoUpload(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+        ImportProperties properties = new ImportProperties();
+        properties.setBlockSize(4096);
+        SaleImportService importService = importService().repository(repository).properties(properties).build();
+        ImportJobService jobs = jobs(importService, properties);
+
+        byte[] conteudo;
+        try (var is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            conteudo = is.readAllBytes();
+        }
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(gzipped)) {
+            gz.write(conteudo);
+        }
+
+        ImportJob plain = jobs.importStream(new ByteArrayInputStream(conteudo), false, "cru.txt",
+                conteudo.length, null);
+        ImportJob compressed = jobs.importStream(new ByteArrayInputStream(gzipped.toByteArray()), true,
+                "cru.txt.gz", gzipped.size(), null);
+
+        // Upload: copiado para um arquivo temporário e importado como arquivo local.
+        SaleImportService.ImportResult expected = importService.importLocalFile(
+                Files.write(dir.resolve("cru.txt"), conteudo), null, ImportListener.NONE);
+
+        assertEquals(ImportJob.Status.COMPLETED, plain.snapshot().status());
+        assertEquals(expected.withoutTimings(), plain.snapshot().result().withoutTimings());
+        assertEquals(expected.withoutTimings(), compressed.snapshot().result().withoutTimings());
+        assertEquals(127, expected.totalLines());
+        assertEquals(-1, compressed.snapshot().totalBytes());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> jobs.importStream(new ByteArrayInputStream(new byte[0]), false, null, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> jobs.importStream(new ByteArrayInputStream(conteudo), true, null, -1, null));
+    }
+
+    @Test
+    void deveRejeitarArquivoVazio() {
+        ImportJobService jobs = jobs(mock(SaleImportService.class), new ImportProperties());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> jobs.submitUpload(new MockMultipartFile("file", new byte[0]), null));
+    }
+
+    private static ImportJobService jobs(SaleImportService importService, ImportProperties properties) {
+        return new ImportJobService(importService, mock(SalePartitionService.class),
+                new ImportScheduler(properties, null, new SimpleMeterRegistry()), properties,
+                new SimpleMeterRegistry(), JsonMapper.builder().build());
+    }
+}
@@ -0,0 +1,121 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportSchedulerTest {
+
+    @Test
+    void deveAdmitirAteOLimiteEPublicarPosicaoDosDemaisEmOrdem() throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setMaxConcurrent(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ImportScheduler scheduler = new ImportScheduler(properties, null, registry);
+
+        ImportJob first = new ImportJob("a.txt", 0);
+        ImportJob second = new ImportJob("b.txt", 0);
+        ImportJob third = new ImportJob("c.txt", 0);
+        ImportScheduler.Ticket firstTicket = scheduler.enqueueFile(first);
+        ImportScheduler.Ticket secondTicket = scheduler.enqueueFile(second);
+        ImportScheduler.Ticket thirdTicket = scheduler.enqueueFile(third);
+        assertEquals(3, registry.get("sale.import.queued").gauge().value());
+
+        firstTicket.await();
+        assertEquals(1, registry.get("sale.import.running").gauge().value());
+        assertEquals(1, second.snapshot().queuePosition());
+        assertEquals(2, third.snapshot().queuePosition());
+
+        CompletableFuture<Void> secondAdmitted = admit(secondTicket);
+        CompletableFuture<Void> thirdAdmitted = admit(thirdTicket);
+        assertThrows(TimeoutException.class, () -> secondAdmitted.get(200, TimeUnit.MILLISECONDS));
+
+        firstTicket.close();
+        secondAdmitted.get(5, TimeUnit.SECONDS);
+        assertFalse(thirdAdmitted.isDone());
+        assertEquals(1, third.snapshot().queuePosition());
+
+        secondTicket.close();
+        thirdAdmitted.get(5, TimeUnit.SECONDS);
+        thirdTicket.close();
+        assertEquals(0, registry.get("sale.import.running").gauge().value());
+        assertEquals(0, registry.get("sale.import.memory.reserved").gauge().value());
+    }
+
+    @Test
+    void deveSegurarImportacaoQueNaoCabeNoOrcamento_eRodarSozinhaAMaiorQueEle() throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setMaxConcurrent(4);
+        long fileCost = new ImportScheduler(properties, null, new SimpleMeterRegistry()).fileCost();
+        properties.setMemoryBudget(DataSize.ofBytes(fileCost + fileCost / 2));
+        ImportScheduler scheduler = new ImportScheduler(properties, null, new SimpleMeterRegistry());
+
+        ImportScheduler.Ticket first = scheduler.enqueueFile(new ImportJob("a.txt", 0));
+        ImportScheduler.Ticket second = scheduler.enqueueFile(new ImportJob("b.txt", 0));
+        first.await();
+        CompletableFuture<Void> secondAdmitted = admit(second);
+        assertThrows(TimeoutException.class, () -> secondAdmitted.get(200, TimeUnit.MILLISECONDS));
+        first.close();
+        secondAdmitted.get(5, TimeUnit.SECONDS);
+        second.close();
+
+        // Um stream custa mais que o orçamento todo, mas com nada rodando é admitido.
+        ImportScheduler.Ticket stream = scheduler.enqueueStream(new ImportJob("c.txt", 0));
+        admit(stream).get(5, TimeUnit.SECONDS);
+        stream.close();
+    }
+
+    @Test
+    void deveRecusarQuandoAFilaEstaCheia_eLiberarLugarDeQuemDesistiu() throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueued(1);
+        ImportScheduler scheduler = new ImportScheduler(properties, null, new SimpleMeterRegistry());
+
+        ImportScheduler.Ticket running = scheduler.enqueueFile(new ImportJob("a.txt", 0));
+        running.await();
+        ImportJob waitingJob = new ImportJob("b.txt", 0);
+        ImportScheduler.Ticket waiting = scheduler.enqueueFile(waitingJob);
+
+        assertThrows(ImportRejectedException.class, () -> scheduler.enqueueFile(new ImportJob("c.txt", 0)));
+
+        waiting.close();
+        waiting.close();
+        ImportScheduler.Ticket next = scheduler.enqueueFile(new ImportJob("d.txt", 0));
+        running.close();
+        admit(next).get(5, TimeUnit.SECONDS);
+        next.close();
+    }
+
+    @Test
+    void deveExigirPoolMaiorQueOLimiteDeImportacoes() {
+        ImportProperties properties = new ImportProperties();
+        properties.setMaxConcurrent(2);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(2);
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ImportScheduler(properties, dataSource, new SimpleMeterRegistry()));
+
+            dataSource.setMaximumPoolSize(3);
+            assertDoesNotThrow(() -> new ImportScheduler(properties, dataSource, new SimpleMeterRegistry()));
+        }
+    }
+
+    private static CompletableFuture<Void> admit(ImportScheduler.Ticket ticket) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                ticket.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.service.SaleImportService.ImportRejection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectedLineSpoolTest {
+
+    @Test
+    void devePaginarTodasAsRejeicoesEmOrdem_eContarPorMotivo(@TempDir Path dir) {
+        RejectedLineSpool spool = new RejectedLineSpool(dir, JsonMapper.builder().build());
+        for (int line = 1; line <= 25; line++) {
+            spool.append(new ImportRejection(line, line % 5 == 0 ? "eventDate" : "transactionCode",
+                    "erro na linha " + line, "1\tconteúdo \"cru\" " + line));
+        }
+
+        List<ImportRejection> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RejectedLineSpool.RejectionPage page = spool.page(cursor, 10);
+            assertEquals(25, page.total());
+            assertEquals(Map.of("eventDate", 5L, "transactionCode", 20L), page.reasons());
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, all.size());
+        assertEquals(1, all.getFirst().line());
+        assertEquals(25, all.getLast().line());
+        assertEquals("1\tconteúdo \"cru\" 25", all.getLast().content());
+    }
+
+    @Test
+    void deveLerRejeicoesGravadasComAImportacaoEmAndamento(@TempDir Path dir) throws Exception {
+        RejectedLineSpool spool = new RejectedLineSpool(dir, JsonMapper.builder().build());
+        assertEquals(List.of(), spool.page(null, null).items());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+
+        spool.append(new ImportRejection(3, "eventDate", "data inválida", "linha 3"));
+        RejectedLineSpool.RejectionPage first = spool.page(null, null);
+        assertEquals(1, first.items().size());
+        assertNull(first.nextCursor());
+
+        spool.append(new ImportRejection(7, "other", "erro", "linha 7"));
+        spool.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spool.export(out);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"line\":7"));
+
+        spool.delete();
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void deveRecusarCursorQueNaoApontaParaInicioDeRegistro(@TempDir Path dir) {
+        RejectedLineSpool spool = new RejectedLineSpool(dir, JsonMapper.builder().build());
+        spool.append(new ImportRejection(1, "other", "erro", "linha 1"));
+        spool.append(new ImportRejection(2, "other", "erro", "linha 2"));
+
+        String cursor = spool.page(null, 1).nextCursor();
+        assertEquals(2, spool.page(cursor, 1).items().getFirst().line());
+
+        String middle = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("5".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> spool.page(middle, 1));
+        assertThrows(IllegalArgumentException.class, () -> spool.page("???", 1));
+        assertThrows(IllegalArgumentException.class, () -> spool.page(null, 0));
+    }
+}
@@ -0,0 +1,68 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.parser.SaleLayout;
+
+import java.io.InputStream;
+
+/**
+ * Gera o conteúdo de um arquivo sintético sob demanda, repetindo a mesma linha,
+ * sem manter o arquivo inteiro em memória. O número da repetição é gravado no
+ * campo do transaction code, para que cada linha seja uma venda distinta.
+ */
+final class RepeatingLineInputStream extends InputStream {
+    private final byte[] line;
+    private final int counterStart;
+    private final int counterEnd;
+    private long remaining;
+    private long counter;
+    private int position;
+
+    RepeatingLineInputStream(byte[] line, long times) {
+        this.line = line.clone();
+        this.counterStart = SaleLayout.TRANSACTION_CODE.offset();
+        this.counterEnd = SaleLayout.TRANSACTION_CODE.end();
+        this.remaining = times;
+    }
+
+    @Override
+    public int read() {
+        if (remaining == 0) {
+            return -1;
+        }
+        stampCounter();
+        int b = line[position++];
+        advance();
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (remaining == 0) {
+            return -1;
+        }
+        stampCounter();
+        int n = Math.min(len, line.length - position);
+        System.arraycopy(line, position, b, off, n);
+        position += n;
+        advance();
+        return n;
+    }
+
+    private void stampCounter() {
+        if (position != 0) {
+            return;
+        }
+        long value = counter++;
+        for (int i = counterEnd - 1; i >= counterStart; i--) {
+            line[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void advance() {
+        if (position == line.length) {
+            position = 0;
+            remaining--;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.domain.Sale;
+import com.equals.desafio.parser.SaleLayout;
+import com.equals.desafio.repository.SaleRollupWriter;
+import com.equals.desafio.repository.SaleSummaryReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roda contra o banco, como o DesafioApplicationTests. Cada teste roda numa transação
+ * desfeita no fim, então não deixa vendas nem rollup para trás.
+ */
+@SpringBootTest
+@Transactional
+class SaleDailyRollupConsistencyTest {
+
+    @Autowired
+    private SaleImportService saleImportService;
+
+    @Autowired
+    private SaleRollupWriter saleRollupWriter;
+
+    @Autowired
+    private SaleSummaryReader saleSummaryReader;
+
+    @Test
+    void deveManterRollupIgualAsVendasEmTodosOsCaminhosDeGravacao() throws Exception {
+        saleRollupWriter.rebuild();
+        assertEquals(0, saleSummaryReader.countMismatches());
+
+        LocalDate day = LocalDate.of(1999, 12, 31);
+        String prefix = UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+        String content = fileWith(prefix, 0, 40) + fileWith(prefix, 30, 60);
+
+        SaleImportService.ImportResult viaJpa = saleImportService.importStream(
+                new ByteArrayInputStream(fileWith(prefix, 0, 40).getBytes(StandardCharsets.UTF_8)),
+                ImportWriteMode.JPA, ImportListener.NONE);
+        SaleImportService.ImportResult viaCopy = saleImportService.importStream(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                ImportWriteMode.COPY, ImportListener.NONE);
+
+        Sale avulsa = new Sale();
+        avulsa.setEstablishmentCode("9999999999");
+        avulsa.setEventDate(day);
+        avulsa.setTotalAmount(new BigDecimal("10.00"));
+        avulsa.setTransactionCode(prefix + "avulsa00");
+        saleImportService.saveSale(avulsa);
+
+        assertEquals(40, viaJpa.saved());
+        assertEquals(20, viaCopy.saved());
+        assertEquals(50, viaCopy.duplicates());
+        assertEquals(0, saleSummaryReader.countMismatches());
+
+        List<SaleSummaryReader.Row> rows = saleSummaryReader.summarize(day, day, null, false, false);
+        assertEquals(1, rows.size());
+        assertEquals(61, rows.get(0).count());
+
+        saleRollupWriter.rebuild();
+        assertEquals(rows, saleSummaryReader.summarize(day, day, null, false, false));
+        assertEquals(0, saleSummaryReader.countMismatches());
+    }
+
+    /**
+     * Linhas de detalhe em 31/12/1999 com transaction codes prefix + [from, to).
+     */
+    private String fileWith(String prefix, int from, int to) throws Exception {
+        String detail;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            detail = new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1"))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        detail = replace(detail, SaleLayout.EVENT_DATE, "19991231");
+
+        StringBuilder content = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            content.append(replace(detail, SaleLayout.TRANSACTION_CODE, prefix + String.format("%08d", i)))
+                    .append('\n');
+        }
+        return content.toString();
+    }
+
+    private static String replace(String line, SaleLayout.Field field, String value) {
+        return line.substring(0, field.offset()) + value + line.substring(field.end());
+    }
+}
@@ -0,0 +1,72 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.repository.SaleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mede a vazão do pipeline de importação com 1, 2, 4 e 8 workers, pelo caminho dos uploads:
+ * arquivo local mapeado em memória, com checkpoints (gravação simulada, então o gargalo é
+ * hash + leitura + parse + validação).
+ */
+class SaleImportScalingTest {
+
+    private static final int DETAIL_LINES = 200_000;
+
+    @Test
+    void deveEscalarComNumeroDeWorkers_eManterOMesmoResultado(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("vendas.txt");
+        Files.copy(new RepeatingLineInputStream(detailLine(), DETAIL_LINES), file);
+        SaleImportService.ImportResult baseline = null;
+
+        run(file, 2);
+
+        for (int workers : new int[] { 1, 2, 4, 8 }) {
+            long start = System.nanoTime();
+            SaleImportService.ImportResult result = run(file, workers);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("workers=%d  %,.0f linhas/s%n", workers, DETAIL_LINES / seconds);
+
+            assertEquals(DETAIL_LINES, result.saved());
+            if (baseline != null) {
+                assertEquals(baseline.withoutTimings(), result.withoutTimings());
+            }
+            baseline = result;
+        }
+    }
+
+    private SaleImportService.ImportResult run(Path file, int workers) {
+        SaleRepository repository = mock(SaleRepository.class, withSettings().stubOnly());
+        when(repository.saveAll(any())).thenReturn(List.of());
+
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelism(workers);
+        SaleImportService service = importService().repository(repository).properties(properties).build();
+
+        return service.importLocalFile(file, null, ImportListener.NONE);
+    }
+
+    private byte[] detailLine() throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            assertNotNull(is, "Arquivo não encontrado em src/test/resources: processoSeletivoEquals.txt");
+            String line = new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1"))
+                    .findFirst()
+                    .orElseThrow();
+            return (line + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
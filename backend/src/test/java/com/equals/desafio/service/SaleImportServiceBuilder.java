@@ -0,0 +1,115 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.parser.SaleParser;
+import com.equals.desafio.repository.ImportCheckpointRepository;
+import com.equals.desafio.repository.ImportedFileRepository;
+import com.equals.desafio.repository.SaleCopyWriter;
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleRollupWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link SaleImportService} para testes: parser real, propriedades padrão e mocks em todas
+ * as outras dependências, trocadas só onde o teste precisa. Uma dependência nova do serviço
+ * entra aqui, não em cada teste.
+ */
+public final class SaleImportServiceBuilder {
+
+    private SaleParser parser = new SaleParser();
+    private SaleRepository repository = mock(SaleRepository.class);
+    private SaleCopyWriter copyWriter = mock(SaleCopyWriter.class);
+    private ImportedFileRepository importedFiles = mock(ImportedFileRepository.class);
+    // Sem registrar as chamadas: importações grandes chamam o rollup a cada lote.
+    private SaleRollupWriter rollupWriter = mock(SaleRollupWriter.class, withSettings().stubOnly());
+    private SaleQueryCache queryCache = mock(SaleQueryCache.class);
+    private SaleTotalsIndex totalsIndex = mock(SaleTotalsIndex.class);
+    private ImportMetrics metrics;
+    private ImportCheckpointRepository checkpoints = checkpointRepository();
+    private PlatformTransactionManager transactions = mock(PlatformTransactionManager.class);
+    private ImportProperties properties = new ImportProperties();
+
+    private SaleImportServiceBuilder() {
+    }
+
+    public static SaleImportServiceBuilder importService() {
+        return new SaleImportServiceBuilder();
+    }
+
+    public SaleImportServiceBuilder parser(SaleParser parser) {
+        this.parser = parser;
+        return this;
+    }
+
+    public SaleImportServiceBuilder repository(SaleRepository repository) {
+        this.repository = repository;
+        return this;
+    }
+
+    public SaleImportServiceBuilder copyWriter(SaleCopyWriter copyWriter) {
+        this.copyWriter = copyWriter;
+        return this;
+    }
+
+    public SaleImportServiceBuilder importedFiles(ImportedFileRepository importedFiles) {
+        this.importedFiles = importedFiles;
+        return this;
+    }
+
+    public SaleImportServiceBuilder rollupWriter(SaleRollupWriter rollupWriter) {
+        this.rollupWriter = rollupWriter;
+        return this;
+    }
+
+    public SaleImportServiceBuilder queryCache(SaleQueryCache queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    public SaleImportServiceBuilder totalsIndex(SaleTotalsIndex totalsIndex) {
+        this.totalsIndex = totalsIndex;
+        return this;
+    }
+
+    public SaleImportServiceBuilder metrics(ImportMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public SaleImportServiceBuilder checkpoints(ImportCheckpointRepository checkpoints) {
+        this.checkpoints = checkpoints;
+        return this;
+    }
+
+    public SaleImportServiceBuilder transactions(PlatformTransactionManager transactions) {
+        this.transactions = transactions;
+        return this;
+    }
+
+    public SaleImportServiceBuilder properties(ImportProperties properties) {
+        this.properties = properties;
+        return this;
+    }
+
+    /**
+     * Repositório de checkpoints que devolve o que recebe no save, como o JPA: basta para o
+     * importLocalFile confirmar trechos sem banco.
+     */
+    public static ImportCheckpointRepository checkpointRepository() {
+        ImportCheckpointRepository checkpoints = mock(ImportCheckpointRepository.class, withSettings().stubOnly());
+        when(checkpoints.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return checkpoints;
+    }
+
+    public SaleImportService build() {
+        return new SaleImportService(parser, repository, copyWriter, importedFiles, rollupWriter, queryCache,
+                totalsIndex, metrics != null ? metrics : new ImportMetrics(new SimpleMeterRegistry()), checkpoints,
+                transactions, properties);
+    }
+}
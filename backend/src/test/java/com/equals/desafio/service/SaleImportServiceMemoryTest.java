@@ -0,0 +1,70 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.repository.SaleRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Executado pela execução "memory" do surefire, com heap reduzido (-Xmx64m).
+ * Sem lotes, as 2 milhões de vendas não caberiam no heap. Usa o caminho dos uploads e do
+ * spool: arquivo local (cerca de 1 GB, em disco) mapeado em memória e confirmado em trechos.
+ */
+@Tag("memory")
+class SaleImportServiceMemoryTest {
+
+    private static final int DETAIL_LINES = 2_000_000;
+
+    @Test
+    void deveImportarArquivoGrandeComMemoriaConstante(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class, withSettings().stubOnly());
+
+        AtomicLong persisted = new AtomicLong();
+        doAnswer(invocation -> {
+            Iterable<?> batch = invocation.getArgument(0);
+            batch.forEach(sale -> persisted.incrementAndGet());
+            return List.of();
+        }).when(repository).saveAll(any());
+
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(500);
+        SaleImportService service = importService().repository(repository).properties(properties).build();
+
+        Path file = dir.resolve("grande.txt");
+        Files.copy(new RepeatingLineInputStream(detailLine(), DETAIL_LINES), file);
+
+        SaleImportService.ImportResult result = service.importLocalFile(file, null, ImportListener.NONE);
+
+        assertEquals(DETAIL_LINES, result.totalLines());
+        assertEquals(DETAIL_LINES, result.detailLines());
+        assertEquals(DETAIL_LINES, result.saved());
+        assertEquals(0, result.invalid());
+        assertEquals(DETAIL_LINES, persisted.get());
+    }
+
+    private byte[] detailLine() throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            assertNotNull(is, "Arquivo não encontrado em src/test/resources: processoSeletivoEquals.txt");
+            String content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            for (String line : content.split("\r?\n")) {
+                if (!line.isEmpty() && line.charAt(0) == '1') {
+                    return (line + "\n").getBytes(StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IllegalStateException("Nenhuma linha tipo '1' no arquivo de exemplo.");
+    }
+}
@@ -1,33 +1,67 @@
 package com.equals.desafio.service;
 
+import com.equals.desafio.config.ImportProperties;
+import com.equals.desafio.domain.ImportCheckpoint;
+import com.equals.desafio.domain.ImportedFile;
 import com.equals.desafio.domain.Sale;
+import com.equals.desafio.parser.SaleLayout;
 import com.equals.desafio.parser.SaleParser;
+import com.equals.desafio.parser.SaleRecord;
+import com.equals.desafio.repository.ImportCheckpointRepository;
+import com.equals.desafio.repository.ImportedFileRepository;
+import com.equals.desafio.repository.SaleCopyWriter;
 import com.equals.desafio.repository.SaleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
-import org.springframework.mock.web.MockMultipartFile;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.equals.desafio.service.SaleImportServiceBuilder.importService;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class SaleImportServiceTest {
 
     @Test
-    void deveImportarSomenteLinhasTipo1_eSalvarNoRepositorio() {
+    void deveImportarSomenteLinhasTipo1_eSalvarNoRepositorio(@TempDir Path dir) throws Exception {
 
         SaleParser parser = mock(SaleParser.class);
         SaleRepository repository = mock(SaleRepository.class);
 
-        SaleImportService service = new SaleImportService(parser, repository);
+        SaleImportService service = importService().parser(parser).repository(repository).build();
 
         String conteudo = "0HEADER QUALQUER\n" +
                 "\n" +
@@ -35,11 +69,7 @@ class SaleImportServiceTest {
                 "2TRAILER QUALQUER\n" +
                 "1LINHA_DETALHE_2\n";
 
-        MockMultipartFile file = new MockMultipartFile(
-                "file",
-                "teste.txt",
-                "text/plain",
-                conteudo.getBytes(StandardCharsets.UTF_8));
+        Path file = Files.writeString(dir.resolve("teste.txt"), conteudo);
 
         Sale sale1 = new Sale();
         sale1.setEstablishmentCode("1234567891");
@@ -59,8 +89,8 @@ class SaleImportServiceTest {
         sale2.setTransactionCode("B".repeat(32));
         sale2.setNetAmount(new BigDecimal("1.00"));
 
-        when(parser.parse(anyString())).thenAnswer(invocation -> {
-            String arg = invocation.getArgument(0, String.class);
+        when(parser.parse(any(SaleRecord.class))).thenAnswer(invocation -> {
+            String arg = invocation.getArgument(0, SaleRecord.class).line();
             String trimmed = arg.trim();
 
             if (trimmed.equals("1LINHA_DETALHE_1"))
@@ -71,7 +101,7 @@ class SaleImportServiceTest {
             return null;
         });
 
-        SaleImportService.ImportResult result = service.importFile(file);
+        SaleImportService.ImportResult result = service.importLocalFile(file, null, ImportListener.NONE);
 
         assertEquals(5, result.totalLines());
         assertEquals(2, result.detailLines());
@@ -79,7 +109,7 @@ class SaleImportServiceTest {
         assertEquals(3, result.ignored());
         assertEquals(0, result.invalid());
 
-        verify(parser, times(2)).parse(anyString());
+        verify(parser, times(2)).parse(any(SaleRecord.class));
 
         verify(repository).saveAll(argThat(iterable -> {
             if (iterable == null) return false;
@@ -94,19 +124,533 @@ class SaleImportServiceTest {
     }
 
     @Test
-    void deveFalharQuandoArquivoVazio() {
+    void deveSalvarEmLotes_eLimparContextoEntreLotes(@TempDir Path dir) throws Exception {
         SaleParser parser = mock(SaleParser.class);
         SaleRepository repository = mock(SaleRepository.class);
-        SaleImportService service = new SaleImportService(parser, repository);
 
-        MockMultipartFile emptyFile = new MockMultipartFile(
-                "file",
-                "vazio.txt",
-                "text/plain",
-                new byte[0]);
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(2);
+        SaleImportService service = importService().parser(parser).repository(repository).properties(properties)
+                .build();
+
+        String conteudo = "0HEADER\n" +
+                "1LINHA_1\n" +
+                "1LINHA_2\n" +
+                "1LINHA_3\n" +
+                "1LINHA_4\n" +
+                "1LINHA_5\n" +
+                "9TRAILER\n";
+
+        Path file = Files.writeString(dir.resolve("lotes.txt"), conteudo);
+
+        when(parser.parse(any(SaleRecord.class))).thenAnswer(invocation -> {
+            String arg = invocation.getArgument(0, SaleRecord.class).line().trim();
+            Sale sale = new Sale();
+            sale.setEstablishmentCode("1234567891");
+            sale.setEventDate(LocalDate.of(2018, 9, 25));
+            sale.setTotalAmount(new BigDecimal("1.00"));
+            sale.setTransactionCode(arg.substring(arg.length() - 1).repeat(32));
+            return sale;
+        });
+
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterable<Sale> batch = invocation.getArgument(0);
+            int size = 0;
+            for (Sale ignored : batch) {
+                size++;
+            }
+            batchSizes.add(size);
+            return List.of();
+        }).when(repository).saveAll(any());
+
+        SaleImportService.ImportResult result = service.importLocalFile(file, null, ImportListener.NONE);
+
+        assertEquals(7, result.totalLines());
+        assertEquals(5, result.detailLines());
+        assertEquals(5, result.saved());
+        assertEquals(2, result.ignored());
+        assertEquals(0, result.invalid());
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        verify(repository, times(3)).flushAndClear();
+    }
+
+    @Test
+    void deveGravarViaCopyQuandoModoCopySolicitado(@TempDir Path dir) throws Exception {
+        SaleParser parser = mock(SaleParser.class);
+        SaleRepository repository = mock(SaleRepository.class);
+        SaleCopyWriter copyWriter = mock(SaleCopyWriter.class);
+        SaleImportService service = importService().parser(parser).repository(repository).copyWriter(copyWriter)
+                .build();
+
+        String conteudo = "0HEADER\n" +
+                "1LINHA_OK\n" +
+                "1LINHA_RUIM\n";
+
+        Path file = Files.writeString(dir.resolve("copy.txt"), conteudo);
+
+        Sale sale = new Sale();
+        sale.setEstablishmentCode("1234567891");
+        sale.setEventDate(LocalDate.of(2018, 9, 25));
+        sale.setTotalAmount(new BigDecimal("1.00"));
+        sale.setTransactionCode("D".repeat(32));
+
+        when(parser.parse(any(SaleRecord.class))).thenAnswer(invocation -> {
+            String arg = invocation.getArgument(0, SaleRecord.class).line();
+            if (arg.trim().equals("1LINHA_OK"))
+                return sale;
+            throw new IllegalArgumentException("linha ruim");
+        });
+        when(copyWriter.copy(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0, List.class).size());
+
+        SaleImportService.ImportResult result =
+                service.importLocalFile(file, ImportWriteMode.COPY, ImportListener.NONE);
+
+        assertEquals(2, result.detailLines());
+        assertEquals(1, result.saved());
+        assertEquals(1, result.invalid());
+        assertEquals(3, result.errors().get(0).line());
+        assertEquals("linha ruim", result.errors().get(0).reason());
+
+        verify(copyWriter).copy(eq(List.of(sale)), any());
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void deveManterNumeroDasLinhasExato_comVariosWorkersEBlocosPequenos(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelism(4);
+        properties.setQueueCapacity(2);
+        properties.setBlockSize(700);
+        properties.setBatchSize(7);
+        SaleImportService service = importService().repository(repository).properties(properties).build();
+
+        String detail;
+        try (var is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            detail = new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1"))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        String invalidDetail = detail.substring(0, 50) + " ".repeat(40) + detail.substring(90);
+
+        StringBuilder conteudo = new StringBuilder("0HEADER\r\n");
+        List<Integer> expectedErrorLines = new ArrayList<>();
+        for (int line = 2; line <= 60; line++) {
+            if (line % 13 == 0) {
+                conteudo.append("\r\n");
+            } else if (line % 7 == 0) {
+                conteudo.append(invalidDetail).append("\r\n");
+                expectedErrorLines.add(line);
+            } else {
+                conteudo.append(withTransactionCode(detail, line)).append(line % 2 == 0 ? "\n" : "\r\n");
+            }
+        }
+        conteudo.append("9TRAILER");
+
+        List<String> persisted = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterable<Sale> batch = invocation.getArgument(0);
+            batch.forEach(sale -> persisted.add(sale.getTransactionCode()));
+            return List.of();
+        }).when(repository).saveAll(any());
+
+        Path file = Files.writeString(dir.resolve("paralelo.txt"), conteudo);
+
+        SaleImportService.ImportResult result = service.importLocalFile(file, null, ImportListener.NONE);
+
+        assertEquals(61, result.totalLines());
+        assertEquals(55, result.detailLines());
+        assertEquals(47, result.saved());
+        assertEquals(6, result.ignored());
+        assertEquals(8, result.invalid());
+        assertEquals(47, persisted.size());
+        assertEquals(47, persisted.stream().distinct().count());
+        assertEquals(expectedErrorLines, result.errors().stream().map(SaleImportService.ImportError::line).toList());
+        assertTrue(result.errors().stream().allMatch(e -> e.reason().equals("transactionCode deve ter 32 caracteres.")));
+    }
+
+    @Test
+    void deveEntregarTodasAsLinhasRejeitadasAoListener_alemDasDoResultado() throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelism(3);
+        properties.setBlockSize(1200);
+        SaleImportService service = importService().properties(properties).build();
+
+        String detail;
+        try (var is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            detail = new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1"))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        String invalidDetail = detail.substring(0, 50) + " ".repeat(40) + detail.substring(90);
+
+        StringBuilder conteudo = new StringBuilder("0HEADER\n");
+        List<Long> expectedLines = new ArrayList<>();
+        for (int line = 2; line <= 40; line++) {
+            if (line % 3 == 0) {
+                conteudo.append(invalidDetail).append('\n');
+                expectedLines.add((long) line);
+            } else {
+                conteudo.append(withTransactionCode(detail, line)).append('\n');
+            }
+        }
+
+        List<SaleImportService.ImportRejection> rejections = new ArrayList<>();
+        ImportListener listener = new ImportListener() {
+            @Override
+            public void onProgress(long linesRead, long bytesRead, long saved, long invalid) {
+            }
+
+            @Override
+            public void onRejected(SaleImportService.ImportRejection rejection) {
+                rejections.add(rejection);
+            }
+        };
+
+        SaleImportService.ImportResult result = service.importStream(
+                new ByteArrayInputStream(conteudo.toString().getBytes(StandardCharsets.UTF_8)),
+                ImportWriteMode.JPA, listener);
+
+        assertEquals(13, result.invalid());
+        assertEquals(10, result.errors().size());
+        assertEquals(expectedLines, rejections.stream().map(SaleImportService.ImportRejection::line).toList());
+        assertTrue(rejections.stream().allMatch(r -> r.reason().equals("transactionCode")
+                && r.message().equals("transactionCode deve ter 32 caracteres.")
+                && r.content().equals(invalidDetail)));
+    }
+
+    @Test
+    void deveImportarArquivoDoSpoolComMesmoResultadoDoCorpoCru(@TempDir Path spool) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelism(3);
+        properties.setBlockSize(2000);
+        properties.setSpoolDir(spool.toString());
+        SaleImportService service = importService().repository(repository).properties(properties).build();
+
+        byte[] conteudo;
+        try (var is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            conteudo = is.readAllBytes();
+        }
+        Files.write(spool.resolve("vendas.txt"), conteudo);
+
+        SaleImportService.ImportResult fromSpool =
+                service.importLocalFile(service.resolveSpoolFile("vendas.txt"), null, ImportListener.NONE);
+        SaleImportService.ImportResult fromBody =
+                service.importStream(new ByteArrayInputStream(conteudo), null, ImportListener.NONE);
+
+        assertEquals(fromBody.withoutTimings(), fromSpool.withoutTimings());
+        assertEquals(127, fromSpool.totalLines());
+        assertEquals(5, fromSpool.saved());
+        assertEquals(120, fromSpool.duplicates());
+
+        assertThrows(IllegalArgumentException.class, () -> service.resolveSpoolFile("../fora.txt"));
+        assertThrows(IllegalArgumentException.class, () -> service.resolveSpoolFile("inexistente.txt"));
+    }
+
+    @Test
+    void deveRetomarImportacaoDoUltimoCheckpointAposFalha(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+        ImportCheckpointRepository checkpoints = mock(ImportCheckpointRepository.class);
+        PlatformTransactionManager transactions = mock(PlatformTransactionManager.class);
+        when(transactions.getTransaction(any())).thenAnswer(invocation -> mock(TransactionStatus.class));
+
+        AtomicReference<ImportCheckpoint> stored = new AtomicReference<>();
+        when(checkpoints.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        when(checkpoints.save(any())).thenAnswer(invocation -> {
+            ImportCheckpoint checkpoint = invocation.getArgument(0);
+            if (checkpoint.getVersion() == null) {
+                checkpoint = spy(checkpoint);
+                doReturn(0L).when(checkpoint).getVersion();
+            }
+            stored.set(checkpoint);
+            return checkpoint;
+        });
+
+        AtomicInteger calls = new AtomicInteger();
+        List<String> persisted = new ArrayList<>();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("conexão perdida");
+            }
+            for (Sale sale : invocation.<Iterable<Sale>>getArgument(0)) {
+                persisted.add(sale.getTransactionCode());
+            }
+            return List.of();
+        }).when(repository).saveAll(any());
+
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelism(1);
+        properties.setBlockSize(600);
+        properties.setBatchSize(2);
+        SaleImportService service = importService().repository(repository).checkpoints(checkpoints)
+                .transactions(transactions).properties(properties).build();
+
+        // Linhas de 531 bytes e blocos de 600: cada bloco fecha duas linhas. O segundo bloco
+        // completa um lote e gera o checkpoint (linhas 1 a 4); o lote do terceiro falha.
+        String detail = fixtureDetailLine();
+        StringBuilder conteudo = new StringBuilder("0").append(" ".repeat(detail.length() - 1)).append('\n');
+        for (int i = 1; i <= 10; i++) {
+            conteudo.append(withTransactionCode(detail, i)).append('\n');
+        }
+        conteudo.append("9").append(" ".repeat(detail.length() - 1)).append('\n');
+        Path file = Files.writeString(dir.resolve("vendas.txt"), conteudo);
+        long lineLength = detail.length() + 1;
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> service.importLocalFile(file, ImportWriteMode.JPA, ImportListener.NONE));
+        assertTrue(failure.getMessage().contains("conexão perdida"));
+        verify(transactions).rollback(any());
+
+        ImportCheckpoint checkpoint = stored.get();
+        assertEquals(4 * lineLength, checkpoint.getByteOffset());
+        assertEquals(4, checkpoint.getTotalLines());
+        assertEquals(3, checkpoint.getSaved());
+        assertEquals(1, checkpoint.getIgnored());
+        assertEquals(3, persisted.size());
 
-        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.importFile(emptyFile));
+        persisted.clear();
+        SaleImportService.ImportResult result =
+                service.importLocalFile(file, ImportWriteMode.JPA, ImportListener.NONE);
+
+        assertEquals(IntStream.rangeClosed(4, 10).mapToObj(i -> String.format("%032d", i)).toList(), persisted);
+        assertEquals(12, result.totalLines());
+        assertEquals(10, result.detailLines());
+        assertEquals(10, result.saved());
+        assertEquals(2, result.ignored());
+        assertEquals(0, result.invalid());
+        verify(checkpoints).delete(checkpoint);
+    }
+
+    @Test
+    void deveDividirArquivoMapeadoEmBlocosAlinhadosPorLinha(@TempDir Path dir) throws Exception {
+        StringBuilder conteudo = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            conteudo.append("linha-").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+        }
+        conteudo.append("ultima-sem-terminador");
+        byte[] bytes = conteudo.toString().getBytes(StandardCharsets.US_ASCII);
+        Path file = Files.write(dir.resolve("blocos.txt"), bytes);
+
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        try (MappedFileBlockSource blocks = new MappedFileBlockSource(file, 37, 256)) {
+            ByteBuffer block;
+            while ((block = blocks.next()) != null) {
+                byte[] chunk = new byte[block.remaining()];
+                block.get(chunk);
+                joined.write(chunk);
+
+                boolean last = joined.size() == bytes.length;
+                byte end = chunk[chunk.length - 1];
+                assertTrue(last || end == '\n' || (end == '\r' && bytes[joined.size()] != '\n'));
+            }
+        }
+
+        assertArrayEquals(bytes, joined.toByteArray());
+    }
+
+    @Test
+    void deveFalharQuandoArquivoVazio() {
+        SaleParser parser = mock(SaleParser.class);
+        SaleRepository repository = mock(SaleRepository.class);
+        SaleImportService service = importService().parser(parser).repository(repository).build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.importStream(new ByteArrayInputStream(new byte[0]), null, ImportListener.NONE));
         assertTrue(ex.getMessage().toLowerCase().contains("arquivo vazio"));
         verify(repository, never()).saveAll(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deveIgnorarTransactionCodesRepetidosNoArquivoEJaGravados(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+        SaleCopyWriter copyWriter = mock(SaleCopyWriter.class);
+
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(3);
+        SaleImportService service = importService().repository(repository).copyWriter(copyWriter)
+                .properties(properties).build();
+
+        String detail = fixtureDetailLine();
+        StringBuilder conteudo = new StringBuilder();
+        for (int code : new int[] {1, 2, 1, 3, 4, 3, 5}) {
+            conteudo.append(withTransactionCode(detail, code)).append('\n');
+        }
+
+        // Simula sale_transaction_codes: o código 4 já veio de uma importação anterior.
+        Set<String> database = new HashSet<>(Set.of(String.format("%032d", 4)));
+        when(repository.reserveTransactionCodes(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> codes = invocation.getArgument(0);
+            return codes.stream().filter(code -> !database.add(code)).collect(Collectors.toSet());
+        });
+
+        List<String> persisted = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterable<Sale> batch = invocation.getArgument(0);
+            batch.forEach(sale -> persisted.add(sale.getTransactionCode()));
+            return List.of();
+        }).when(repository).saveAll(any());
+
+        Path file = Files.writeString(dir.resolve("repetido.txt"), conteudo);
+        SaleImportService.ImportResult result = service.importLocalFile(file, null, ImportListener.NONE);
+
+        assertEquals(7, result.detailLines());
+        assertEquals(4, result.saved());
+        assertEquals(3, result.duplicates());
+        assertEquals(List.of(1, 2, 3, 5), persisted.stream().map(Integer::parseInt).toList());
+
+        when(copyWriter.copy(anyList(), any())).thenAnswer(invocation -> {
+            List<Sale> batch = invocation.getArgument(0);
+            return (int) batch.stream().filter(sale -> database.add(sale.getTransactionCode())).count();
+        });
+
+        SaleImportService.ImportResult viaCopy =
+                service.importLocalFile(file, ImportWriteMode.COPY, ImportListener.NONE);
+
+        assertEquals(0, viaCopy.saved());
+        assertEquals(7, viaCopy.duplicates());
+    }
+
+    @Test
+    void deveReconhecerArquivoJaImportadoSemProcessarAsLinhas(@TempDir Path dir) throws Exception {
+        SaleParser parser = mock(SaleParser.class);
+        SaleRepository repository = mock(SaleRepository.class);
+        ImportedFileRepository importedFiles = mock(ImportedFileRepository.class);
+        SaleImportService service = importService().parser(parser).repository(repository).importedFiles(importedFiles)
+                .build();
+
+        Map<String, ImportedFile> registry = new HashMap<>();
+        when(importedFiles.insertIfAbsent(any(ImportedFile.class))).thenAnswer(invocation -> {
+            ImportedFile file = invocation.getArgument(0);
+            return registry.putIfAbsent(file.getContentHash(), file) == null ? 1 : 0;
+        });
+        when(importedFiles.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(registry.get(invocation.getArgument(0, String.class))));
+
+        Sale sale = new Sale();
+        sale.setEstablishmentCode("1234567891");
+        sale.setEventDate(LocalDate.of(2018, 9, 25));
+        sale.setTotalAmount(new BigDecimal("1.00"));
+        sale.setTransactionCode("E".repeat(32));
+        when(parser.parse(any(SaleRecord.class))).thenReturn(sale);
+
+        byte[] conteudo = "0HEADER\n1LINHA\n9TRAILER\n".getBytes(StandardCharsets.UTF_8);
+
+        SaleImportService.ImportResult first = service.importLocalFile(
+                Files.write(dir.resolve("dia.txt"), conteudo), null, ImportListener.NONE);
+        SaleImportService.ImportResult again = service.importLocalFile(
+                Files.write(dir.resolve("dia-reenviado.txt"), conteudo), null, ImportListener.NONE);
+
+        assertEquals(1, first.saved());
+        assertEquals(0, first.duplicates());
+        assertEquals(new SaleImportService.ImportResult(3, 1, 0, 2, 0, 1, List.of()), again);
+
+        assertEquals(1, registry.size());
+        verify(parser, times(1)).parse(any(SaleRecord.class));
+        verify(repository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void deveImportarUmaVezSoOMesmoArquivoEnviadoDuasVezesAoMesmoTempo(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+        ImportedFileRepository importedFiles = mock(ImportedFileRepository.class);
+        Map<String, ImportedFile> registry = new ConcurrentHashMap<>();
+        when(importedFiles.insertIfAbsent(any(ImportedFile.class))).thenAnswer(invocation -> {
+            ImportedFile file = invocation.getArgument(0);
+            return registry.putIfAbsent(file.getContentHash(), file) == null ? 1 : 0;
+        });
+        when(importedFiles.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(registry.get(invocation.getArgument(0, String.class))));
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        SaleImportService service = importService().repository(repository).importedFiles(importedFiles).build();
+        Path file = Files.writeString(dir.resolve("vendas.txt"),
+                "0HEADER\n" + withTransactionCode(fixtureDetailLine(), 1) + "\n9TRAILER\n");
+
+        CompletableFuture<SaleImportService.ImportResult> first = CompletableFuture.supplyAsync(
+                () -> service.importLocalFile(file, ImportWriteMode.JPA, ImportListener.NONE));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<SaleImportService.ImportResult> second = CompletableFuture.supplyAsync(
+                () -> service.importLocalFile(file, ImportWriteMode.JPA, ImportListener.NONE));
+        Thread.sleep(100);
+        assertFalse(second.isDone(), "a segunda importação deve esperar a primeira");
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).saved());
+        SaleImportService.ImportResult again = second.get(5, TimeUnit.SECONDS);
+        assertEquals(0, again.saved());
+        assertEquals(1, again.duplicates());
+        assertEquals(1, registry.size());
+        verify(repository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void deveRegistrarMetricasETemposPorEtapa(@TempDir Path dir) throws Exception {
+        SaleRepository repository = mock(SaleRepository.class);
+        when(repository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(2);
+        SaleImportService service = importService().repository(repository).metrics(new ImportMetrics(registry))
+                .properties(properties).build();
+
+        String detail = fixtureDetailLine();
+        int dateStart = SaleLayout.EVENT_DATE.offset();
+        int establishmentStart = SaleLayout.ESTABLISHMENT_CODE.offset();
+        String conteudo = "0HEADER\n"
+                + withTransactionCode(detail, 1) + "\n"
+                + withTransactionCode(detail, 2) + "\n"
+                + withTransactionCode(detail, 3) + "\n"
+                + detail.substring(0, dateStart) + "20181345" + detail.substring(dateStart + 8) + "\n"
+                + detail.substring(0, establishmentStart) + " ".repeat(10) + detail.substring(establishmentStart + 10)
+                + "\n9TRAILER\n";
+
+        SaleImportService.ImportResult result = service.importLocalFile(
+                Files.writeString(dir.resolve("vendas.txt"), conteudo), null, ImportListener.NONE);
+
+        assertEquals(3, result.saved());
+        assertEquals(2, result.invalid());
+        assertNotSame(SaleImportService.StageTimings.NONE, result.timings());
+        assertTrue(result.timings().totalMillis() >= result.timings().persistMillis());
+
+        assertEquals(1, registry.get("sale.import.invalid").tag("reason", "eventDate").counter().count());
+        assertEquals(1, registry.get("sale.import.invalid").tag("reason", "establishmentCode").counter().count());
+        assertEquals(7, registry.get("sale.import.lines").counter().count());
+        assertEquals(conteudo.length(), registry.get("sale.import.bytes").counter().count());
+        assertEquals(2, registry.get("sale.import.batch.size").summary().count());
+        assertEquals(3, registry.get("sale.import.batch.size").summary().totalAmount());
+        for (String stage : List.of("read", "parse", "validate", "persist")) {
+            assertEquals(1, registry.get("sale.import.stage").tag("stage", stage).timer().count(), stage);
+        }
+    }
+
+    private String fixtureDetailLine() {
+        try (var is = getClass().getClassLoader().getResourceAsStream("processoSeletivoEquals.txt")) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(l -> l.startsWith("1"))
+                    .findFirst()
+                    .orElseThrow();
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String withTransactionCode(String detail, int code) {
+        int offset = SaleLayout.TRANSACTION_CODE.offset();
+        return detail.substring(0, offset) + String.format("%032d", code)
+                + detail.substring(SaleLayout.TRANSACTION_CODE.end());
+    }
+}
@@ -0,0 +1,38 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.repository.SalePartitionWriter;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalePartitionServiceTest {
+
+    @Test
+    void deveCriarJanelaDeMesesEMesesQueCairamNaParticaoDefault() {
+        SalePartitionWriter writer = mock(SalePartitionWriter.class);
+        LocalDate antigo = LocalDate.of(2023, 1, 1);
+        when(writer.monthsInDefault()).thenReturn(List.of(antigo));
+        when(writer.createMonth(any())).thenReturn(true);
+
+        int created = new SalePartitionService(writer).ensurePartitions();
+
+        LocalDate current = LocalDate.now().withDayOfMonth(1);
+        InOrder order = inOrder(writer);
+        order.verify(writer).createMonth(antigo);
+        for (int i = -SalePartitionService.MONTHS_BEHIND; i <= SalePartitionService.MONTHS_AHEAD; i++) {
+            order.verify(writer).createMonth(current.plusMonths(i));
+        }
+        assertEquals(6, created);
+        verify(writer, times(6)).createMonth(any());
+    }
+}
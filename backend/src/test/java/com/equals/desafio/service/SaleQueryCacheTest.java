@@ -0,0 +1,78 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.QueryCacheProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleQueryCacheTest {
+
+    @Test
+    void deveDescartarAPaginaMenosUsadaQuandoPassaDoLimite() {
+        QueryCacheProperties properties = new QueryCacheProperties();
+        properties.setMaxEntries(2);
+        SaleQueryCache cache = new SaleQueryCache(properties);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(key(1), () -> entry(loads));
+        cache.get(key(2), () -> entry(loads));
+        cache.get(key(1), () -> entry(loads));
+        cache.get(key(3), () -> entry(loads)); // descarta a 2, menos usada
+        cache.get(key(1), () -> entry(loads));
+        cache.get(key(2), () -> entry(loads));
+
+        assertEquals(4, loads.get());
+        SaleQueryCache.Stats stats = cache.stats();
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(2, stats.evictions());
+    }
+
+    @Test
+    void deveRecarregarPaginaExpirada() throws Exception {
+        QueryCacheProperties properties = new QueryCacheProperties();
+        properties.setTtl(Duration.ofMillis(500));
+        SaleQueryCache cache = new SaleQueryCache(properties);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(key(1), () -> entry(loads));
+        cache.get(key(1), () -> entry(loads));
+        Thread.sleep(600);
+        cache.get(key(1), () -> entry(loads));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void naoDeveGuardarPaginaLidaAntesDeUmaInvalidacao() {
+        SaleQueryCache cache = new SaleQueryCache(new QueryCacheProperties());
+        AtomicInteger loads = new AtomicInteger();
+
+        // Uma importação confirma enquanto a página ainda está sendo lida.
+        cache.get(key(1), () -> {
+            cache.invalidate(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 1));
+            return entry(loads);
+        });
+        cache.get(key(1), () -> entry(loads));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().size());
+    }
+
+    private static SaleQueryCache.Key key(int day) {
+        LocalDate date = LocalDate.of(2018, 9, day);
+        return new SaleQueryCache.Key(date, date, date, 0, 100);
+    }
+
+    private static SaleQueryCache.Entry entry(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new SaleQueryCache.Entry(new SaleQueryService.SalePage(List.of(), null), "\"x\"");
+    }
+}
@@ -0,0 +1,203 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.QueryCacheProperties;
+import com.equals.desafio.domain.SaleView;
+import com.equals.desafio.repository.SaleCursorReader;
+import com.equals.desafio.repository.SaleRepository;
+import com.equals.desafio.repository.SaleSummaryReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SaleQueryServiceTest {
+
+    @Test
+    void devePaginarPorCursorSemRepetirNemPularVendas() throws Exception {
+        List<SaleView> table = new ArrayList<>();
+        long id = 1;
+        for (int day = 1; day <= 5; day++) {
+            for (int i = 0; i < 7; i++) {
+                table.add(sale(id++, LocalDate.of(2018, 9, day)));
+            }
+        }
+        // Ids fora da ordem das datas, como acontece com arquivos importados fora de ordem.
+        table.add(sale(id, LocalDate.of(2018, 9, 2)));
+        table.sort(Comparator.comparing(SaleView::eventDate).thenComparingLong(SaleView::id));
+
+        SaleRepository repository = mock(SaleRepository.class);
+        when(repository.findPageAfter(any(), any(), any(), anyLong(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            LocalDate afterDate = invocation.getArgument(2);
+            long afterId = invocation.getArgument(3);
+            Limit limit = invocation.getArgument(4);
+            return table.stream()
+                    .filter(s -> !s.eventDate().isBefore(start) && !s.eventDate().isAfter(end))
+                    .filter(s -> s.eventDate().isAfter(afterDate)
+                            || (s.eventDate().equals(afterDate) && s.id() > afterId))
+                    .limit(limit.max())
+                    .toList();
+        });
+
+        SaleQueryService service = new SaleQueryService(repository, mock(SaleCursorReader.class),
+                mock(SaleSummaryReader.class), mock(SaleQueryCache.class), mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SaleQueryService.SalePage page = service.page(
+                    LocalDate.of(2018, 9, 2), LocalDate.of(2018, 9, 4), cursor, 4);
+            page.items().forEach(s -> seen.add(s.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = table.stream()
+                .filter(s -> !s.eventDate().isBefore(LocalDate.of(2018, 9, 2))
+                        && !s.eventDate().isAfter(LocalDate.of(2018, 9, 4)))
+                .map(SaleView::id)
+                .toList();
+        assertEquals(expected, seen);
+        assertEquals(22, seen.size());
+        assertEquals(6, pages);
+    }
+
+    @Test
+    void deveServirPaginaDoCacheAteUmaGravacaoNoPeriodo() {
+        SaleRepository repository = mock(SaleRepository.class);
+        List<SaleView> table = new ArrayList<>(List.of(sale(1, LocalDate.of(2018, 9, 2))));
+        when(repository.findPageAfter(any(), any(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> List.copyOf(table));
+
+        SaleQueryCache cache = new SaleQueryCache(new QueryCacheProperties());
+        SaleQueryService service = new SaleQueryService(repository, mock(SaleCursorReader.class),
+                mock(SaleSummaryReader.class), cache, mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build());
+
+        LocalDate start = LocalDate.of(2018, 9, 1);
+        LocalDate end = LocalDate.of(2018, 9, 30);
+        SaleQueryCache.Entry first = service.cachedPage(start, end, null, null);
+        SaleQueryCache.Entry second = service.cachedPage(start, end, null, null);
+        assertSame(first, second);
+        verify(repository, times(1)).findPageAfter(any(), any(), any(), anyLong(), any());
+
+        // Gravação fora do período não afeta a página.
+        cache.invalidate(LocalDate.of(2018, 10, 1), LocalDate.of(2018, 10, 31));
+        assertSame(first, service.cachedPage(start, end, null, null));
+
+        table.add(sale(2, LocalDate.of(2018, 9, 20)));
+        cache.invalidate(LocalDate.of(2018, 9, 20), LocalDate.of(2018, 9, 20));
+        SaleQueryCache.Entry third = service.cachedPage(start, end, null, null);
+        assertEquals(2, third.page().items().size());
+        assertNotEquals(first.etag(), third.etag());
+        assertTrue(third.etag().startsWith("\"") && third.etag().endsWith("\""));
+
+        SaleQueryCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.invalidations());
+    }
+
+    @Test
+    void deveRejeitarTamanhoDePaginaECursorInvalidos() {
+        SaleQueryService service = new SaleQueryService(
+                mock(SaleRepository.class), mock(SaleCursorReader.class), mock(SaleSummaryReader.class),
+                mock(SaleQueryCache.class), mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build());
+
+        assertThrows(IllegalArgumentException.class, () -> service.page(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.page(null, null, null, SaleQueryService.MAX_PAGE_SIZE + 1));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.page(null, null, "nao-e-um-cursor", null));
+        assertEquals("cursor inválido.", ex.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveExportarUmaVendaPorLinhaEmNdjson() throws Exception {
+        SaleCursorReader reader = mock(SaleCursorReader.class);
+        doAnswer(invocation -> {
+            Consumer<SaleView> action = invocation.getArgument(2);
+            action.accept(new SaleView(1, "1234567891", LocalDate.of(2018, 9, 25),
+                    LocalTime.of(13, 17, 36), "MASTERCARD", new BigDecimal("1.00"), "A".repeat(32),
+                    new BigDecimal("0.98")));
+            action.accept(new SaleView(2, "1234567891", LocalDate.of(2018, 9, 26),
+                    null, "VISA \"INTL\"", new BigDecimal("2.50"), "B".repeat(32), null));
+            return null;
+        }).when(reader).forEach(any(), any(), any(Consumer.class));
+
+        SaleQueryService service = new SaleQueryService(mock(SaleRepository.class), reader,
+                mock(SaleSummaryReader.class), mock(SaleQueryCache.class), mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("A exportação não deve fechar o stream da resposta.");
+            }
+        };
+        service.export(null, LocalDate.of(2018, 9, 30), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("{\"id\":1,\"establishmentCode\":\"1234567891\",\"eventDate\":\"2018-09-25\","
+                + "\"eventTime\":\"13:17:36\",\"brand\":\"MASTERCARD\",\"totalAmount\":1.00,"
+                + "\"transactionCode\":\"" + "A".repeat(32) + "\",\"netAmount\":0.98}", lines.get(0));
+        assertTrue(lines.get(1).contains("\"brand\":\"VISA \\\"INTL\\\"\""));
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+
+        verify(reader).forEach(eq(LocalDate.of(1, 1, 1)), eq(LocalDate.of(2018, 9, 30)), any(Consumer.class));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new SaleQueryService(mock(SaleRepository.class), mock(SaleCursorReader.class),
+                mock(SaleSummaryReader.class), mock(SaleQueryCache.class), mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build())
+                .export(null, null, empty);
+        assertEquals(0, empty.size());
+    }
+
+    @Test
+    void deveTraduzirGroupByParaAsDimensoesDoResumo() {
+        SaleSummaryReader summaryReader = mock(SaleSummaryReader.class);
+        SaleQueryService service = new SaleQueryService(mock(SaleRepository.class), mock(SaleCursorReader.class),
+                summaryReader, mock(SaleQueryCache.class), mock(SaleTotalsIndex.class),
+                JsonMapper.builder().build());
+
+        service.summary(LocalDate.of(2018, 9, 1), null, " Month , brand");
+        verify(summaryReader).summarize(LocalDate.of(2018, 9, 1), LocalDate.of(9999, 12, 31),
+                SaleSummaryReader.Period.MONTH, false, true);
+
+        service.summary(null, null, null);
+        verify(summaryReader).summarize(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), null, false, false);
+
+        service.summary(null, null, "establishment,week");
+        verify(summaryReader).summarize(any(), any(), eq(SaleSummaryReader.Period.WEEK), eq(true), eq(false));
+
+        assertThrows(IllegalArgumentException.class, () -> service.summary(null, null, "day,month"));
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.summary(null, null, "brand;drop table sales"));
+        assertTrue(ex.getMessage().startsWith("groupBy inválido"));
+    }
+
+    private static SaleView sale(long id, LocalDate eventDate) {
+        return new SaleView(id, null, eventDate, null, null, null, null, null);
+    }
+}
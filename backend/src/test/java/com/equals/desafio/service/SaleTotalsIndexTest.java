@@ -0,0 +1,179 @@
+package com.equals.desafio.service;
+
+import com.equals.desafio.config.TotalsIndexProperties;
+import com.equals.desafio.repository.SaleSummaryReader.Totals;
+import com.equals.desafio.repository.SaleTotalsReader;
+import com.equals.desafio.repository.SaleTotalsSink;
+import com.equals.desafio.service.SaleTotalsIndex.Measure;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SaleTotalsIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void deveSomarPeriodosAPartirDoRollup_incluindoOsLimites() {
+        SaleTotalsIndex index = index(sink -> {
+            sink.add("1", BASE, 2, 1000, 900);
+            sink.add("1", BASE.plusDays(2), 1, 500, 450);
+            sink.add("1", BASE.plusDays(5), 3, 300, 270);
+            sink.add("2", BASE, 7, 7000, 6300);
+        });
+
+        assertEquals(new Totals(6, 1800, 1620), index.totals("1", null, null));
+        assertEquals(new Totals(3, 1500, 1350), index.totals("1", BASE, BASE.plusDays(2)));
+        assertEquals(new Totals(4, 800, 720), index.totals("1", BASE.plusDays(1), null));
+        assertEquals(new Totals(1, 500, 450), index.totals("1", BASE.plusDays(2), BASE.plusDays(4)));
+        assertEquals(Totals.ZERO, index.totals("1", BASE.plusDays(3), BASE.plusDays(4)));
+        assertEquals(Totals.ZERO, index.totals("1", BASE.plusDays(6), null));
+        assertEquals(7000, index.sum("2", null, null, Measure.TOTAL_CENTS));
+        assertEquals(Totals.ZERO, index.totals("9", null, null));
+    }
+
+    @Test
+    void deveSomarVendasNovas_inclusiveEmDiasEEstabelecimentosNovos() {
+        SaleTotalsIndex index = index(sink -> {
+            sink.add("1", BASE, 1, 100, 90);
+            sink.add("1", BASE.plusDays(4), 1, 100, 90);
+        });
+
+        SaleTotalsIndex.Delta delta = new SaleTotalsIndex.Delta();
+        delta.add("1", BASE.plusDays(2), 2, 200, 180);
+        delta.add("1", BASE.plusDays(4), 1, 50, 45);
+        delta.add("3", BASE, 1, 10, 9);
+        index.addAfterCommit(delta);
+
+        assertEquals(new Totals(5, 450, 405), index.totals("1", null, null));
+        assertEquals(new Totals(2, 200, 180), index.totals("1", BASE.plusDays(1), BASE.plusDays(3)));
+        assertEquals(new Totals(2, 150, 135), index.totals("1", BASE.plusDays(4), BASE.plusDays(4)));
+        assertEquals(new Totals(1, 10, 9), index.totals("3", null, null));
+    }
+
+    @Test
+    void deveBaterComASomaDiretaEmPeriodosAleatorios() {
+        Random random = new Random(42);
+        long[] expected = new long[400];
+        SaleTotalsIndex index = index(sink -> {
+            for (int day = 0; day < expected.length; day += 3) {
+                expected[day] = random.nextInt(10_000);
+                sink.add("1", BASE.plusDays(day), 1, expected[day], 0);
+            }
+        });
+        for (int round = 0; round < 20; round++) {
+            SaleTotalsIndex.Delta delta = new SaleTotalsIndex.Delta();
+            for (int i = 0; i < 10; i++) {
+                int day = random.nextInt(expected.length);
+                long cents = random.nextInt(10_000);
+                expected[day] += cents;
+                delta.add("1", BASE.plusDays(day), 1, cents, 0);
+            }
+            index.addAfterCommit(delta);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            int from = random.nextInt(expected.length + 10) - 5;
+            int to = from + random.nextInt(60);
+            long sum = 0;
+            for (int day = Math.max(from, 0); day <= Math.min(to, expected.length - 1); day++) {
+                sum += expected[day];
+            }
+            assertEquals(sum, index.sum("1", BASE.plusDays(from), BASE.plusDays(to), Measure.TOTAL_CENTS));
+        }
+    }
+
+    @Test
+    void deveEsperarTransacaoConfirmadaAplicarOsTotaisAntesDeRecarregar() throws Exception {
+        AtomicLong rollup = new AtomicLong(1);
+        SaleTotalsIndex index = index(sink -> sink.add("1", BASE, rollup.get(), 100 * rollup.get(), 0));
+        SaleTotalsIndex.Delta delta = new SaleTotalsIndex.Delta();
+        delta.add("1", BASE, 1, 100, 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronization commit;
+        try {
+            index.addAfterCommit(delta);
+            commit = TransactionSynchronizationManager.getSynchronizations().getFirst();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // A transação gravou no rollup e passou do beforeCommit, mas ainda não somou ao índice.
+        commit.beforeCommit(false);
+        rollup.set(2);
+        Thread reload = Thread.ofVirtual().start(index::reload);
+        reload.join(Duration.ofMillis(200));
+        assertTrue(reload.isAlive());
+
+        commit.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        assertTrue(reload.join(Duration.ofSeconds(5)));
+        assertEquals(new Totals(2, 200, 0), index.totals("1", null, null));
+    }
+
+    @Test
+    void deveTentarDeNovoACargaEmSegundoPlanoQueFalhou() throws Exception {
+        TotalsIndexProperties properties = new TotalsIndexProperties();
+        properties.setBackgroundLoad(true);
+        SaleTotalsReader reader = mock(SaleTotalsReader.class);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Falha ao ler o rollup diário: conexão recusada");
+            }
+            invocation.getArgument(0, Runnable.class).run();
+            invocation.getArgument(1, SaleTotalsSink.class).add("1", BASE, 1, 100, 90);
+            return null;
+        }).when(reader).forEach(any(), any());
+        SaleTotalsIndex index = new SaleTotalsIndex(properties, reader);
+
+        index.afterSingletonsInstantiated();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!index.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertTrue(index.isReady());
+        assertEquals(2, attempts.get());
+        assertEquals(new Totals(1, 100, 90), index.totals("1", null, null));
+    }
+
+    @Test
+    void deveRecusarConsultaComIndiceDesligado() {
+        TotalsIndexProperties properties = new TotalsIndexProperties();
+        properties.setEnabled(false);
+        SaleTotalsReader reader = mock(SaleTotalsReader.class);
+        SaleTotalsIndex index = new SaleTotalsIndex(properties, reader);
+
+        index.afterSingletonsInstantiated();
+
+        assertFalse(index.isEnabled());
+        assertThrows(IllegalStateException.class, () -> index.totals("1", null, null));
+    }
+
+    private static SaleTotalsIndex index(Rows rows) {
+        SaleTotalsReader reader = mock(SaleTotalsReader.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            rows.feed(invocation.getArgument(1, SaleTotalsSink.class));
+            return null;
+        }).when(reader).forEach(any(), any());
+        SaleTotalsIndex index = new SaleTotalsIndex(new TotalsIndexProperties(), reader);
+        index.afterSingletonsInstantiated();
+        return index;
+    }
+
+    private interface Rows {
+        void feed(SaleTotalsSink sink);
+    }
+}
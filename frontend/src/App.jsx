@@ -6,7 +6,11 @@ export default function App() {
   const [file, setFile] = useState(null);
 
   const [result, setResult] = useState(null);
+  const [importJobId, setImportJobId] = useState(null);
+  const [progress, setProgress] = useState(null);
   const [sales, setSales] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [salesQuery, setSalesQuery] = useState("");
 
   const [start, setStart] = useState("");
   const [end, setEnd] = useState("");
@@ -42,19 +46,67 @@ export default function App() {
     return payload;
   }
 
+  // Busca a primeira página do filtro; as seguintes vêm de loadMoreSales.
   async function fetchSales(params = "") {
     setLoadingSales(true);
     try {
       const response = await fetch(`${API}/sales${params}`);
       const data = await parseResponse(response);
-      const list = Array.isArray(data) ? data : [];
+      const list = Array.isArray(data?.items) ? data.items : [];
       setSales(list);
-      return list;
+      setNextCursor(data?.nextCursor ?? null);
+      setSalesQuery(params);
+      return { list, count: `${list.length}${data?.nextCursor ? "+" : ""}` };
     } finally {
       setLoadingSales(false);
     }
   }
 
+  async function loadMoreSales() {
+    if (!nextCursor) return;
+
+    setLoadingSales(true);
+    try {
+      const separator = salesQuery ? "&" : "?";
+      const response = await fetch(
+        `${API}/sales${salesQuery}${separator}cursor=${encodeURIComponent(nextCursor)}`
+      );
+      const data = await parseResponse(response);
+      const list = Array.isArray(data?.items) ? data.items : [];
+      setSales((current) => [...current, ...list]);
+      setNextCursor(data?.nextCursor ?? null);
+    } catch (err) {
+      setSuccess("");
+      setError(err?.message || "Erro ao carregar mais vendas.");
+    } finally {
+      setLoadingSales(false);
+    }
+  }
+
+  function watchImport(jobId) {
+    return new Promise((resolve, reject) => {
+      const source = new EventSource(`${API}/imports/${jobId}/events`);
+
+      source.addEventListener("progress", (event) => {
+        const job = JSON.parse(event.data);
+        setProgress(job);
+
+        if (job.status === "COMPLETED") {
+          source.close();
+          resolve(job.result);
+        } else if (job.status === "FAILED") {
+          source.close();
+          reject(new Error(job.error || "Falha na importação."));
+        }
+      });
+
+      source.onerror = () => {
+        source.close();
+        reject(new Error("Conexão com o andamento da importação perdida."));
+      };
+    });
+  }
+
   const importSummary = useMemo(() => {
     if (!result) return null;
 
@@ -63,9 +115,10 @@ export default function App() {
     const saved = result.saved ?? 0;
     const ignored = result.ignored ?? 0;
     const invalid = result.invalid ?? 0;
+    const duplicates = result.duplicates ?? 0;
     const errors = Array.isArray(result.errors) ? result.errors : [];
 
-    return { total, detail, saved, ignored, invalid, errors };
+    return { total, detail, saved, ignored, invalid, duplicates, errors };
   }, [result]);
 
   async function handleImport() {
@@ -95,14 +148,21 @@ export default function App() {
         body: formData,
       });
 
-      const data = await parseResponse(response);
+      const job = await parseResponse(response);
+      setProgress(job);
+
+      const data = await watchImport(job.id);
+      setImportJobId(job.id);
       setResult(data);
 
       const saved = data?.saved ?? 0;
       const invalid = data?.invalid ?? 0;
+      const duplicates = data?.duplicates ?? 0;
 
       setError("");
-      setSuccess(`Importação concluída. Salvas: ${saved}. Inválidas: ${invalid}.`);
+      setSuccess(
+        `Importação concluída. Salvas: ${saved}. Inválidas: ${invalid}. Duplicadas: ${duplicates}.`
+      );
 
       await fetchSales("");
     } catch (err) {
@@ -110,6 +170,7 @@ export default function App() {
       setError(err?.message || "Erro ao importar arquivo.");
     } finally {
       setLoadingImport(false);
+      setProgress(null);
     }
   }
 
@@ -121,9 +182,9 @@ export default function App() {
 
     try {
       if (!start && !end) {
-        const list = await fetchSales("");
+        const { count } = await fetchSales("");
         setError("");
-        setSuccess(`Exibindo todas as vendas (${list.length}).`);
+        setSuccess(`Exibindo todas as vendas (${count}).`);
         return;
       }
 
@@ -138,7 +199,7 @@ export default function App() {
       if (end) params.append("end", end);
 
       const query = `?${params.toString()}`;
-      const list = await fetchSales(query);
+      const { list, count } = await fetchSales(query);
 
       if (list.length === 0) {
         setSuccess("");
@@ -147,7 +208,7 @@ export default function App() {
         else setError("Nenhuma venda encontrada no período informado.");
       } else {
         setError("");
-        setSuccess(`Filtro aplicado. Encontradas: ${list.length}.`);
+        setSuccess(`Filtro aplicado. Encontradas: ${count}.`);
       }
     } catch (err) {
       setSuccess("");
@@ -166,9 +227,9 @@ export default function App() {
 
     setLoadingFilter(true);
     try {
-      const list = await fetchSales("");
+      const { count } = await fetchSales("");
       setError("");
-      setSuccess(`Filtro limpo. Exibindo todas as vendas (${list.length}).`);
+      setSuccess(`Filtro limpo. Exibindo todas as vendas (${count}).`);
     } catch (err) {
       setSuccess("");
       setError(err?.message || "Erro ao limpar filtro.");
@@ -188,6 +249,11 @@ export default function App() {
 
   const busy = loadingImport || loadingSales || loadingFilter;
 
+  const progressPercent =
+    progress && progress.totalBytes > 0
+      ? Math.min(100, Math.round((progress.bytesRead / progress.totalBytes) * 100))
+      : 0;
+
   return (
     <div style={{ padding: 20 }}>
       <h1>Relatório de Vendas</h1>
@@ -230,13 +296,30 @@ export default function App() {
         {loadingImport ? "Importando..." : "Importar"}
       </button>
 
+      {progress?.queuePosition != null && (
+        <div style={{ marginTop: 12 }}>
+          Na fila de importação (posição {progress.queuePosition})
+        </div>
+      )}
+
+      {progress && progress.queuePosition == null && (
+        <div style={{ marginTop: 12 }}>
+          <progress value={progressPercent} max={100} /> {progressPercent}% | Linhas:{" "}
+          {progress.linesRead} | Salvas: {progress.saved} | Inválidas: {progress.invalid}
+          {progress.linesPerSecond != null &&
+            ` | ${Math.round(progress.linesPerSecond)} linhas/s`}
+          {progress.etaSeconds != null && ` | Restante: ${progress.etaSeconds}s`}
+        </div>
+      )}
+
       {
         importSummary && (
           <div style={{ marginTop: 12 }}>
             <p>
               <strong>Resumo:</strong> Total: {importSummary.total} | Detalhes:{" "}
               {importSummary.detail} | Salvas: {importSummary.saved} | Ignoradas:{" "}
-              {importSummary.ignored} | Inválidas: {importSummary.invalid}
+              {importSummary.ignored} | Inválidas: {importSummary.invalid} | Duplicadas:{" "}
+              {importSummary.duplicates}
             </p>
 
             {importSummary.errors.length > 0 && (
@@ -251,6 +334,11 @@ export default function App() {
                     </li>
                   ))}
                 </ul>
+                {importJobId && importSummary.invalid > importSummary.errors.length && (
+                  <a href={`${API}/imports/${importJobId}/errors/export`} download="linhas-rejeitadas.ndjson">
+                    Baixar todas as {importSummary.invalid} linhas rejeitadas
+                  </a>
+                )}
               </>
             )}
           </div>
@@ -294,7 +382,14 @@ export default function App() {
 
       {/* VENDAS */}
       <h2>Vendas</h2>
-      {loadingSales ? <p>Carregando...</p> : <p>Total: {sales.length}</p>}
+      {loadingSales ? (
+        <p>Carregando...</p>
+      ) : (
+        <p>
+          Exibindo: {sales.length}
+          {nextCursor && " (há mais vendas)"}
+        </p>
+      )}
 
       {
         sales.length === 0 ? (
@@ -326,6 +421,12 @@ export default function App() {
           </table>
         )
       }
+
+      {nextCursor && (
+        <button onClick={loadMoreSales} disabled={busy} style={{ marginTop: 12 }}>
+          {loadingSales ? "Carregando..." : "Carregar mais"}
+        </button>
+      )}
     </div >
   );
 }
\ No newline at end of file